@@ -0,0 +1,74 @@
+package com.mshindelar.lockegameservice.benchmark;
+
+import com.mshindelar.lockegameservice.entity.squadlocke.*;
+import com.mshindelar.lockegameservice.pokeapi.model.Ability;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Box lookups and updates for boxes of various sizes. Every pokemon in the
+ * box is caught, each on its own route.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoxBenchmark {
+
+    @Param({"6", "30", "120"})
+    private int boxSize;
+
+    private Box box;
+    private SquadlockePokemon newEncounter;
+    private String lastLocationId;
+
+    @Setup
+    public void setUp() {
+        this.box = new Box();
+
+        for(int i = 1; i <= this.boxSize; i++) {
+            this.box.add(pokemon(i, "route-" + i));
+            this.box.updateEncounter("route-" + i, "mon" + i, 0, Nature.HARDY, Gender.UNKNOWN, false);
+        }
+
+        this.lastLocationId = "route-" + this.boxSize;
+        this.newEncounter = pokemon(this.boxSize + 1, "route-new");
+    }
+
+    @Benchmark
+    public boolean containsSpeciesHit() { return this.box.containsSpecies(this.boxSize); }
+
+    @Benchmark
+    public boolean containsSpeciesMiss() { return this.box.containsSpecies(this.boxSize + 1); }
+
+    @Benchmark
+    public SquadlockePokemon getEncounterForLocation() { return this.box.getEncounterForLocation(this.lastLocationId); }
+
+    // Removed again straight away so the box stays the same size
+    @Benchmark
+    public Box addAndRemove() {
+        this.box.add(this.newEncounter);
+        this.box.remove(this.newEncounter);
+        return this.box;
+    }
+
+    private static SquadlockePokemon pokemon(int nationalDexNumber, String locationId) {
+        Ability ability = new Ability();
+        ability.setName("ability-" + nationalDexNumber);
+
+        Pokemon model = new Pokemon();
+        model.setId(nationalDexNumber);
+        model.setName("species-" + nationalDexNumber);
+        model.setAbilities(Collections.singletonList(ability));
+
+        SquadlockePokemon pokemon = new SquadlockePokemon();
+        pokemon.setModel(model);
+        pokemon.setLocationId(locationId);
+        return pokemon;
+    }
+}
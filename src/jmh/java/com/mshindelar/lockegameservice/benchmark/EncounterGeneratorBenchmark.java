@@ -0,0 +1,79 @@
+package com.mshindelar.lockegameservice.benchmark;
+
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.*;
+import org.apache.commons.rng.UniformRandomProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rolling an encounter against tables of various sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncounterGeneratorBenchmark {
+
+    @Param({"4", "16", "64", "256"})
+    private int tableSize;
+
+    private final EncounterGeneratorFactory factory = new EncounterGeneratorFactory();
+    private EncounterGenerator weighted;
+    private EncounterGenerator even;
+    private EncounterTable table;
+    private List<Encounter> encounters;
+    private UniformRandomProvider rng;
+
+    @Setup
+    public void setUp() {
+        this.weighted = this.factory.getEncounterGenerator(EncounterProbability.DEFAULT);
+        this.even = this.factory.getEncounterGenerator(EncounterProbability.EVEN);
+        this.rng = RollStreams.forRoll(42, 0);
+
+        this.encounters = new ArrayList<>(this.tableSize);
+        for(int i = 0; i < this.tableSize; i++) {
+            Encounter encounter = new Encounter();
+            encounter.setGenerationId("4");
+            encounter.setGameId(1);
+            encounter.setLocationId("route-1");
+            encounter.setMode(EncounterMode.DAY);
+            encounter.setNationalDexNumber(i + 1);
+            encounter.setDefaultEncounterRate(1 + this.rng.nextInt(40));
+            this.encounters.add(encounter);
+        }
+        this.table = new EncounterTable(this.encounters);
+    }
+
+    @Benchmark
+    public int weightedSample() { return this.weighted.sample(this.table, this.rng); }
+
+    @Benchmark
+    public int evenSample() { return this.even.sample(this.table, this.rng); }
+
+    @Benchmark
+    public Encounter weightedEncounter() { return this.weighted.getEncounter(this.table, this.rng); }
+
+    // Half the species are already caught, so about half the rolls are rerolled
+    @Benchmark
+    public Encounter weightedEncounterWithSpeciesClause() {
+        return this.weighted.getEncounter(this.table, nationalDexNumber -> (nationalDexNumber & 1) == 0, this.rng);
+    }
+
+    // Compiles the table on every roll, as the generator did before tables were cached
+    @Benchmark
+    public Encounter weightedEncounterFromList() { return this.weighted.getEncounter(this.encounters, this.rng); }
+
+    @Benchmark
+    public EncounterTable compileTable() { return new EncounterTable(this.encounters); }
+
+    @Benchmark
+    public EncounterGenerator factoryLookup() { return this.factory.getEncounterGenerator(EncounterProbability.DEFAULT); }
+
+    @Benchmark
+    public UniformRandomProvider rollStream() { return RollStreams.forRoll(42, this.tableSize); }
+}
@@ -0,0 +1,63 @@
+package com.mshindelar.lockegameservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a PokeAPI pokemon payload. Most of a real payload is the moves
+ * list, which the deserializer skips, so payload size is driven by the
+ * number of moves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PokemonDeserializationBenchmark {
+
+    @Param({"0", "80", "400"})
+    private int moveCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder()
+                .append("{\"id\":1,\"name\":\"bulbasaur\",")
+                .append("\"abilities\":[")
+                .append("{\"ability\":{\"name\":\"overgrow\",\"url\":\"https://pokeapi.co/api/v2/ability/65/\"},\"is_hidden\":false,\"slot\":1},")
+                .append("{\"ability\":{\"name\":\"chlorophyll\",\"url\":\"https://pokeapi.co/api/v2/ability/34/\"},\"is_hidden\":true,\"slot\":3}],")
+                .append("\"types\":[")
+                .append("{\"slot\":1,\"type\":{\"name\":\"grass\",\"url\":\"https://pokeapi.co/api/v2/type/12/\"}},")
+                .append("{\"slot\":2,\"type\":{\"name\":\"poison\",\"url\":\"https://pokeapi.co/api/v2/type/4/\"}}],")
+                .append("\"stats\":[");
+
+        String[] stats = {"hp", "attack", "defense", "special-attack", "special-defense", "speed"};
+        for(int i = 0; i < stats.length; i++) {
+            if(i > 0) json.append(',');
+            json.append("{\"base_stat\":").append(45 + i).append(",\"effort\":0,\"stat\":{\"name\":\"").append(stats[i])
+                    .append("\",\"url\":\"https://pokeapi.co/api/v2/stat/").append(i + 1).append("/\"}}");
+        }
+
+        json.append("],\"moves\":[");
+        for(int i = 0; i < this.moveCount; i++) {
+            if(i > 0) json.append(',');
+            json.append("{\"move\":{\"name\":\"move-").append(i).append("\",\"url\":\"https://pokeapi.co/api/v2/move/").append(i)
+                    .append("/\"},\"version_group_details\":[")
+                    .append("{\"level_learned_at\":1,\"move_learn_method\":{\"name\":\"level-up\",\"url\":\"https://pokeapi.co/api/v2/move-learn-method/1/\"},")
+                    .append("\"version_group\":{\"name\":\"red-blue\",\"url\":\"https://pokeapi.co/api/v2/version-group/1/\"}}]}");
+        }
+
+        json.append("],\"species\":{\"name\":\"bulbasaur\",\"url\":\"https://pokeapi.co/api/v2/pokemon-species/1/\"}}");
+        this.payload = json.toString().getBytes();
+    }
+
+    @Benchmark
+    public Pokemon deserialize() throws IOException { return this.objectMapper.readValue(this.payload, Pokemon.class); }
+}
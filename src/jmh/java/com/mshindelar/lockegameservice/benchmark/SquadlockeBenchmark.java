@@ -0,0 +1,42 @@
+package com.mshindelar.lockegameservice.benchmark;
+
+import com.mshindelar.lockegameservice.entity.squadlocke.Squadlocke;
+import com.mshindelar.lockegameservice.entity.squadlocke.SquadlockeParticipant;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SquadlockeBenchmark {
+
+    @Param({"2", "8", "32"})
+    private int participantCount;
+
+    private Squadlocke squadlocke;
+    private String lastParticipantId;
+
+    @Setup
+    public void setUp() {
+        this.squadlocke = new Squadlocke();
+        this.squadlocke.setId("benchmark");
+        this.squadlocke.setParticipants(new HashSet<>());
+
+        for(int i = 0; i < this.participantCount; i++) {
+            this.squadlocke.addParticipant(new SquadlockeParticipant("participant-" + i));
+        }
+
+        this.lastParticipantId = "participant-" + (this.participantCount - 1);
+    }
+
+    @Benchmark
+    public SquadlockeParticipant getParticipantById() { return this.squadlocke.getParticipantById(this.lastParticipantId); }
+
+    @Benchmark
+    public boolean allPlayersReady() { return this.squadlocke.allPlayersReady(); }
+}
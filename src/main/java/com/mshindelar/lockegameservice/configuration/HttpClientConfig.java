@@ -1,39 +1,41 @@
 package com.mshindelar.lockegameservice.configuration;
 
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration.HttpProperties;
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration.RouteProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HeaderElement;
 import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
-import org.apache.http.config.Registry;
-import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.ConnectionKeepAliveStrategy;
-import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.conn.socket.PlainConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
-import org.apache.http.ssl.SSLContextBuilder;
-import org.apache.http.ssl.TrustStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
-import javax.net.ssl.SSLContext;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
+import java.net.URI;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Configuration
 @EnableScheduling
@@ -41,41 +43,33 @@ import java.util.concurrent.TimeUnit;
 public class HttpClientConfig {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConfig.class);
 
-    private static final int CONNECTION_TIMEOUT = 30000;
-    private static final int REQUEST_TIMEOUT = 30000;
-    private static final int SOCKET_TIMEOUT = 60000;
-    private static final int MAX_TOTAL_CONNECTIONS = 50;
     private static final int DEFAULT_KEEP_ALIVE_TIME_MILLIS = 20 * 1000;
-    private static final int CLOSE_IDLE_CONNECTION_WAIT_TIME_SECS = 30;
-
-//    @Bean
-//    public PoolingHttpClientConnectionManager poolingHttpClientConnectionManager() {
-//        SSLContextBuilder builder = new SSLContextBuilder();
-//
-//        try {
-//            TrustSelfSignedStrategy strategy = new TrustSelfSignedStrategy();
-//            builder.loadTrustMaterial(null, )
-//        } catch  (NoSuchAlgorithmException | KeyStoreException e) {
-//            LOGGER.error("Pooling Connection Manager Initialisation failure because of " + e.getMessage(), e);
-//        }
-//
-//        SSLConnectionSocketFactory sslsf = null;
-//        try {
-//            sslsf = new SSLConnectionSocketFactory(builder.build());
-//        } catch(KeyManagementException | NoSuchAlgorithmException e) {
-//            LOGGER.error("Pooling Connection Manager Initialisation failure because of " + e.getMessage(), e);
-//        }
-//
-//        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder
-//                .<ConnectionSocketFactory>create()
-//                .register("https", sslsf)
-//                .register("http", new PlainConnectionSocketFactory())
-//                .build();
-//
-//        PoolingHttpClientConnectionManager poolingHttpClientConnectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
-//        poolingHttpClientConnectionManager.setMaxTotal(MAX_TOTAL_CONNECTIONS);
-//        return poolingHttpClientConnectionManager;
-//    }
+
+    @Autowired
+    private LockeGameServiceConfiguration gameServiceConfiguration;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Bean
+    public PoolingHttpClientConnectionManager poolingHttpClientConnectionManager() {
+        HttpProperties http = this.gameServiceConfiguration.getHttp();
+
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(http.getConnectionTimeToLive().toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(http.getMaxTotalConnections());
+        connectionManager.setDefaultMaxPerRoute(http.getDefaultMaxPerRoute());
+
+        this.bindPoolMetrics(connectionManager, PoolingHttpClientConnectionManager::getTotalStats, Tags.of("route", "total"));
+
+        for(RouteProperties routeProperties : http.getRoutes()) {
+            HttpRoute route = toRoute(routeProperties.getUrl());
+            connectionManager.setMaxPerRoute(route, routeProperties.getMaxConnections());
+            this.bindPoolMetrics(connectionManager, m -> m.getStats(route), Tags.of("route", route.getTargetHost().getHostName()));
+        }
+
+        return connectionManager;
+    }
 
     @Bean
     public ConnectionKeepAliveStrategy connectionKeepAliveStrategy() {
@@ -100,37 +94,92 @@ public class HttpClientConfig {
 
     @Bean
     public CloseableHttpClient httpClient() {
+        HttpProperties http = this.gameServiceConfiguration.getHttp();
+
         RequestConfig requestConfig = RequestConfig.custom()
-                .setConnectionRequestTimeout(REQUEST_TIMEOUT)
-                .setConnectTimeout(CONNECTION_TIMEOUT)
-                .setSocketTimeout(SOCKET_TIMEOUT)
+                .setConnectionRequestTimeout((int) http.getRequestTimeout().toMillis())
+                .setConnectTimeout((int) http.getConnectionTimeout().toMillis())
+                .setSocketTimeout((int) http.getSocketTimeout().toMillis())
                 .build();
 
         return HttpClients.custom()
                 .setDefaultRequestConfig(requestConfig)
-                //.setConnectionManager(poolingHttpClientConnectionManager())
+                .setConnectionManager(poolingHttpClientConnectionManager())
                 .setKeepAliveStrategy(connectionKeepAliveStrategy())
                 .build();
     }
 
-//    @Bean
-//    public Runnable idleConnectionMonitor(final PoolingHttpClientConnectionManager connectionManager) {
-//        return new Runnable() {
-//            @Override
-//            @Scheduled(fixedDelay = 10000)
-//            public void run() {
-//                try {
-//                    if(connectionManager != null) {
-//                        LOGGER.trace("run IdleConnectionMonitor - Closing expired and idle connections...");
-//                        connectionManager.closeExpiredConnections();
-//                        connectionManager.closeIdleConnections(CLOSE_IDLE_CONNECTION_WAIT_TIME_SECS, TimeUnit.SECONDS);
-//                    } else {
-//                        LOGGER.trace("run IdleConnectionMonitor - Http Client Connection manager is not initialised");
-//                    }
-//                } catch(Exception e) {
-//                    LOGGER.error("run IdleConnectionMonitor - Exception occurred. msg={}, e={}", e.getMessage(), e);
-//                }
-//            }
-//        };
-//    }
+    /**
+     * Non-blocking client used for PokeAPI. Has its own connection pool, sized
+     * and timed out with the same settings as the blocking client.
+     */
+    @Bean
+    public WebClient pokeApiWebClient(WebClient.Builder webClientBuilder) {
+        HttpProperties http = this.gameServiceConfiguration.getHttp();
+
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("pokeapi")
+                .maxConnections(http.getAsyncMaxConnections())
+                .pendingAcquireTimeout(http.getRequestTimeout())
+                .maxIdleTime(http.getIdleTimeout())
+                .maxLifeTime(http.getConnectionTimeToLive())
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectionTimeout().toMillis())
+                .responseTimeout(http.getSocketTimeout());
+
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(http.getMaxResponseBytes()))
+                .build();
+    }
+
+    /**
+     * Closes pooled connections that have expired or sat idle too long, so
+     * requests do not lease sockets the remote end has already dropped.
+     */
+    @Scheduled(fixedDelayString = "${application.http.idle-monitor-interval-millis:10000}")
+    public void closeIdleConnections() {
+        PoolingHttpClientConnectionManager connectionManager = poolingHttpClientConnectionManager();
+
+        try {
+            LOGGER.trace("run IdleConnectionMonitor - Closing expired and idle connections...");
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(this.gameServiceConfiguration.getHttp().getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch(Exception e) {
+            LOGGER.error("run IdleConnectionMonitor - Exception occurred. msg={}, e={}", e.getMessage(), e);
+        }
+    }
+
+    private void bindPoolMetrics(PoolingHttpClientConnectionManager connectionManager,
+                                 Function<PoolingHttpClientConnectionManager, PoolStats> stats, Tags tags) {
+        Gauge.builder("http.client.pool.leased", connectionManager, m -> stats.apply(m).getLeased())
+                .description("Connections currently leased from the pool")
+                .tags(tags)
+                .register(this.meterRegistry);
+        Gauge.builder("http.client.pool.pending", connectionManager, m -> stats.apply(m).getPending())
+                .description("Requests waiting for a connection")
+                .tags(tags)
+                .register(this.meterRegistry);
+        Gauge.builder("http.client.pool.available", connectionManager, m -> stats.apply(m).getAvailable())
+                .description("Idle connections kept in the pool")
+                .tags(tags)
+                .register(this.meterRegistry);
+        Gauge.builder("http.client.pool.max", connectionManager, m -> stats.apply(m).getMax())
+                .description("Maximum connections allowed")
+                .tags(tags)
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Builds the route the client will plan for a base url, e.g. https://pokeapi.co.
+     */
+    private static HttpRoute toRoute(String url) {
+        URI uri = URI.create(url);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+
+        return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+    }
 }
@@ -1,13 +1,35 @@
 package com.mshindelar.lockegameservice.configuration;
 
 import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterGeneratorFactory;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterImporter;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterIndex;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.LocationCatalog;
+import com.mshindelar.lockegameservice.entity.squadlocke.ParticipantStorage;
+import com.mshindelar.lockegameservice.pokeapi.AsyncPokeApiClient;
+import com.mshindelar.lockegameservice.pokeapi.CircuitBreaker;
+import com.mshindelar.lockegameservice.pokeapi.ContinuationExecutor;
+import com.mshindelar.lockegameservice.pokeapi.EvolutionIndex;
+import com.mshindelar.lockegameservice.pokeapi.PokeApiCache;
 import com.mshindelar.lockegameservice.pokeapi.PokeApiClient;
+import com.mshindelar.lockegameservice.pokeapi.PokeApiMirror;
+import com.mshindelar.lockegameservice.pokeapi.SpeciesSnapshot;
+import com.mshindelar.lockegameservice.repository.MongoIndexManager;
+import com.mshindelar.lockegameservice.service.ConflictRetryExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import lombok.Setter;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @ConfigurationProperties(prefix="application")
@@ -20,15 +42,235 @@ public class LockeGameServiceConfiguration {
     @Bean
     public PokeApiClient pokeApiClient() { return new PokeApiClient(); }
 
+    @Bean
+    public AsyncPokeApiClient asyncPokeApiClient() { return new AsyncPokeApiClient(); }
+
+    @Bean
+    public PokeApiMirror pokeApiMirror() { return new PokeApiMirror(); }
+
+    @Bean
+    public PokeApiCache pokeApiCache(MeterRegistry meterRegistry) { return new PokeApiCache(this.pokeapi.getCache(), meterRegistry); }
+
+    @Bean
+    public SpeciesSnapshot speciesSnapshot() { return new SpeciesSnapshot(this.pokeapi.getSnapshot().getPath()); }
+
+    @Bean
+    public ThreadPoolTaskExecutor asyncContinuationExecutor() {
+        ContinuationProperties continuation = this.pokeapi.getContinuation();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("asyncContinuation-");
+        executor.setCorePoolSize(continuation.getPoolSize());
+        executor.setMaxPoolSize(continuation.getPoolSize());
+        executor.setQueueCapacity(continuation.getQueueCapacity());
+        // Callers are HTTP event loop threads, which must never run blocking work
+        // inline, so once saturated the request fails and is mapped to a 503
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    @Bean
+    public ContinuationExecutor continuationExecutor(@Qualifier("asyncContinuationExecutor") ThreadPoolTaskExecutor executor) {
+        return new ContinuationExecutor(executor);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor pokeApiRefreshExecutor() {
+        ResilienceProperties resilience = this.pokeapi.getResilience();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("pokeApiRefresh-");
+        executor.setCorePoolSize(resilience.getRefreshPoolSize());
+        executor.setMaxPoolSize(resilience.getRefreshPoolSize());
+        executor.setQueueCapacity(resilience.getRefreshQueueCapacity());
+        // Refreshes are best effort, a rejected one is retried on a later read
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    @Bean
+    public CircuitBreaker pokeApiCircuitBreaker(MeterRegistry meterRegistry) {
+        ResilienceProperties resilience = this.pokeapi.getResilience();
+        return new CircuitBreaker("PokeAPI", resilience.getFailureThreshold(), resilience.getOpenDuration(),
+                PokeApiClient::isUpstreamFailure, meterRegistry);
+    }
+
+    @Bean
+    public EvolutionIndex evolutionIndex() { return new EvolutionIndex(); }
+
+    @Bean
+    public EncounterIndex encounterIndex() { return new EncounterIndex(); }
+
+    @Bean
+    public LocationCatalog locationCatalog() { return new LocationCatalog(); }
+
+    @Bean
+    public MongoIndexManager mongoIndexManager() { return new MongoIndexManager(); }
+
+    @Bean
+    public EncounterImporter encounterImporter() { return new EncounterImporter(); }
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool encounterSimulationPool() {
+        return new ForkJoinPool(this.encounters.getSimulationParallelism());
+    }
+
+    @Bean
+    public ConflictRetryExecutor conflictRetryExecutor(MeterRegistry meterRegistry, ContinuationExecutor continuationExecutor) {
+        return new ConflictRetryExecutor(this.concurrency.getMaxAttempts(), this.concurrency.getInitialBackoff(),
+                this.concurrency.getMaxBackoff(), meterRegistry, continuationExecutor);
+    }
+
     @Bean
     public EncounterGeneratorFactory encounterGeneratorFactory() { return new EncounterGeneratorFactory(); }
 
     private TournamentProperties tournament = new TournamentProperties();
 
+    private PokeApiProperties pokeapi = new PokeApiProperties();
+
+    private HttpProperties http = new HttpProperties();
+
+    private EncounterProperties encounters = new EncounterProperties();
+
+    private IndexProperties indexes = new IndexProperties();
+
+    private ConcurrencyProperties concurrency = new ConcurrencyProperties();
+
+    private SquadlockeProperties squadlocke = new SquadlockeProperties();
+
     @Getter
     @Setter
     public static class TournamentProperties {
         private String key;
         private String uri;
     }
+
+    @Getter
+    @Setter
+    public static class PokeApiProperties {
+        private CacheProperties cache = new CacheProperties();
+        private MirrorProperties mirror = new MirrorProperties();
+        private HydrationProperties hydration = new HydrationProperties();
+        private ContinuationProperties continuation = new ContinuationProperties();
+        private ResilienceProperties resilience = new ResilienceProperties();
+        private SnapshotProperties snapshot = new SnapshotProperties();
+    }
+
+    @Getter
+    @Setter
+    public static class CacheProperties {
+        // Approximate bytes of species data to keep on heap
+        private long maximumWeight = 16 * 1024 * 1024;
+        private long maximumAliases = 10000;
+        private long maximumEvolutionChains = 1000;
+        // Entries older than this are still served but refreshed in the background
+        private Duration refreshAfterWrite = Duration.ofHours(24);
+        // Longest an entry is served while refreshes keep failing
+        private Duration expireAfterWrite = Duration.ofDays(7);
+    }
+
+    @Getter
+    @Setter
+    public static class MirrorProperties {
+        // Check the local species collections before calling PokeAPI
+        private boolean readThrough = true;
+        private int batchSize = 50;
+    }
+
+    @Getter
+    @Setter
+    public static class SnapshotProperties {
+        // Binary species file served ahead of the cache and mirror, unset to disable
+        private String path;
+    }
+
+    @Getter
+    @Setter
+    public static class HydrationProperties {
+        // How long a single request waits for species before returning what it has
+        private Duration deadline = Duration.ofSeconds(3);
+    }
+
+    @Getter
+    @Setter
+    public static class ContinuationProperties {
+        // Threads that run the blocking work following a non-blocking PokeAPI call
+        private int poolSize = 16;
+        private int queueCapacity = 256;
+    }
+
+    @Getter
+    @Setter
+    public static class ResilienceProperties {
+        // Consecutive upstream failures before calls to PokeAPI fail fast
+        private int failureThreshold = 5;
+        // How long to fail fast before letting a probe call through
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int refreshPoolSize = 2;
+        private int refreshQueueCapacity = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class EncounterProperties {
+        // Reload the encounter index from the collection's change stream, needs a replica set
+        private boolean watchChanges = false;
+        // Writes within this window of each other trigger a single reload
+        private Duration reloadDebounce = Duration.ofSeconds(2);
+        private long maximumSimulationRuns = 1000000;
+        private int simulationParallelism = Runtime.getRuntime().availableProcessors();
+        // Encounters written to the staging collection per bulk write
+        private int importBatchSize = 1000;
+        // Bad rows an import may skip before it is abandoned instead of swapped in
+        private long maximumRejectedRows = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class IndexProperties {
+        private boolean ensureOnStartup = true;
+        // Explain every repository query at startup and refuse to start if one scans its collection
+        private boolean verifyQueryPlans = false;
+    }
+
+    @Getter
+    @Setter
+    public static class ConcurrencyProperties {
+        // Tries at a game write before a conflict is returned to the caller
+        private int maxAttempts = 5;
+        // Retries wait a random time up to this, doubling each attempt up to the maximum
+        private Duration initialBackoff = Duration.ofMillis(10);
+        private Duration maxBackoff = Duration.ofMillis(200);
+    }
+
+    @Getter
+    @Setter
+    public static class SquadlockeProperties {
+        // Where new games keep their participants, existing games keep theirs where they are
+        private ParticipantStorage participantStorage = ParticipantStorage.EMBEDDED;
+    }
+
+    @Getter
+    @Setter
+    public static class HttpProperties {
+        private Duration connectionTimeout = Duration.ofSeconds(30);
+        // How long a request waits to lease a pooled connection
+        private Duration requestTimeout = Duration.ofSeconds(5);
+        private Duration socketTimeout = Duration.ofSeconds(60);
+        private Duration connectionTimeToLive = Duration.ofMinutes(5);
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        private int maxTotalConnections = 50;
+        private int defaultMaxPerRoute = 10;
+        private List<RouteProperties> routes = new ArrayList<>();
+        // Connections held by the non-blocking PokeAPI client
+        private int asyncMaxConnections = 50;
+        private int maxResponseBytes = 4 * 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class RouteProperties {
+        private String url;
+        private int maxConnections;
+    }
 }
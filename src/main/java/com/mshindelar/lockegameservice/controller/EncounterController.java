@@ -2,14 +2,17 @@ package com.mshindelar.lockegameservice.controller;
 
 import com.mshindelar.lockegameservice.entity.EncounterGenerator.Encounter;
 import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterMode;
-import com.mshindelar.lockegameservice.pokeapi.PokeApiClient;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterSimulationResult;
 import com.mshindelar.lockegameservice.service.EncounterGenerationService;
+import com.mshindelar.lockegameservice.service.EncounterSimulationService;
+import com.mshindelar.lockegameservice.service.PokemonHydrationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/encounters")
@@ -20,15 +23,15 @@ public class EncounterController {
     private EncounterGenerationService encounterGenerationService;
 
     @Autowired
-    private PokeApiClient pokeApiClient;
+    private PokemonHydrationService pokemonHydrationService;
+
+    @Autowired
+    private EncounterSimulationService encounterSimulationService;
 
     @GetMapping("{generationId}/{locationId}")
-    List<Encounter> getAllEncountersForLocation(@PathVariable("generationId") String generationId, @PathVariable("locationId") String locationId,
-                                                @RequestParam("gameId") int gameId) {
-        return this.encounterGenerationService.getAllEncountersForLocation(generationId, locationId, gameId)
-                .stream()
-                .peek(e -> e.setModel(this.pokeApiClient.getPokemon(e.getNationalDexNumber())))
-                .collect(Collectors.toList());
+    CompletableFuture<List<Encounter>> getAllEncountersForLocation(@PathVariable("generationId") String generationId, @PathVariable("locationId") String locationId,
+                                                                   @RequestParam("gameId") int gameId) {
+        return this.pokemonHydrationService.hydrateAsync(this.encounterGenerationService.getAllEncountersForLocation(generationId, locationId, gameId));
     }
 
     @GetMapping("{generationId}/{locationId}/modes/all")
@@ -36,4 +39,18 @@ public class EncounterController {
         return this.encounterGenerationService.getAllEncounterModesForLocation(generationId, locationId);
     }
 
+    @GetMapping("{generationId}/locations")
+    Map<String, Map<EncounterMode, Integer>> getLocationCatalog(@PathVariable("generationId") String generationId) {
+        return this.encounterGenerationService.getLocationCatalog(generationId);
+    }
+
+    @GetMapping("{generationId}/simulate")
+    List<EncounterSimulationResult> simulate(@PathVariable("generationId") int generationId, @RequestParam("gameId") int gameId,
+                                             @RequestParam(value = "locationIds", required = false) List<String> locationIds,
+                                             @RequestParam("modes") List<EncounterMode> modes,
+                                             @RequestParam(value = "speciesClause", required = false, defaultValue = "false") boolean speciesClause,
+                                             @RequestParam(value = "runs", required = false, defaultValue = "100000") long runs,
+                                             @RequestParam(value = "seed", required = false) Long seed) {
+        return this.encounterSimulationService.simulate(generationId, gameId, locationIds, modes, speciesClause, runs, seed);
+    }
 }
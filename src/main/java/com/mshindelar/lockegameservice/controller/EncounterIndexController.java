@@ -0,0 +1,44 @@
+package com.mshindelar.lockegameservice.controller;
+
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterImportResult;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterImporter;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterIndex;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterIndexInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/admin/encounters")
+@Slf4j
+public class EncounterIndexController {
+
+    @Autowired
+    private EncounterIndex encounterIndex;
+
+    @Autowired
+    private EncounterImporter encounterImporter;
+
+    @PostMapping("reload")
+    private EncounterIndexInfo reload() {
+        this.encounterIndex.reload();
+        return new EncounterIndexInfo(this.encounterIndex);
+    }
+
+    @GetMapping("index")
+    private EncounterIndexInfo getIndex() {
+        return new EncounterIndexInfo(this.encounterIndex);
+    }
+
+    @PostMapping(value = "import", consumes = "application/x-ndjson")
+    private EncounterImportResult importNdjson(InputStream body) {
+        return this.encounterImporter.importEncounters(body, EncounterImporter.Format.NDJSON);
+    }
+
+    @PostMapping(value = "import", consumes = "text/csv")
+    private EncounterImportResult importCsv(InputStream body) {
+        return this.encounterImporter.importEncounters(body, EncounterImporter.Format.CSV);
+    }
+}
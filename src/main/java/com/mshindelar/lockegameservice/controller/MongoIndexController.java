@@ -0,0 +1,29 @@
+package com.mshindelar.lockegameservice.controller;
+
+import com.mshindelar.lockegameservice.repository.MongoIndexManager;
+import com.mshindelar.lockegameservice.repository.QueryPlanReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/mongo")
+@Slf4j
+public class MongoIndexController {
+
+    @Autowired
+    private MongoIndexManager mongoIndexManager;
+
+    @PostMapping("indexes")
+    private List<QueryPlanReport> ensureIndexes() {
+        this.mongoIndexManager.ensureIndexes();
+        return this.mongoIndexManager.explainQueries();
+    }
+
+    @GetMapping("query-plans")
+    private List<QueryPlanReport> getQueryPlans() {
+        return this.mongoIndexManager.explainQueries();
+    }
+}
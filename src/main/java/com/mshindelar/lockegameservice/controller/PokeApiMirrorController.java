@@ -0,0 +1,39 @@
+package com.mshindelar.lockegameservice.controller;
+
+import com.mshindelar.lockegameservice.pokeapi.PokeApiMirrorJob;
+import com.mshindelar.lockegameservice.pokeapi.SpeciesSnapshotInfo;
+import com.mshindelar.lockegameservice.service.PokeApiMirrorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/pokeapi")
+@Slf4j
+public class PokeApiMirrorController {
+
+    @Autowired
+    private PokeApiMirrorService pokeApiMirrorService;
+
+    @PostMapping("mirror/{generationId}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    private PokeApiMirrorJob startMirror(@PathVariable("generationId") int generationId) {
+        return this.pokeApiMirrorService.startMirror(generationId);
+    }
+
+    @GetMapping("mirror/{generationId}")
+    private PokeApiMirrorJob getMirrorJob(@PathVariable("generationId") int generationId) {
+        return this.pokeApiMirrorService.getMirrorJob(generationId);
+    }
+
+    @PostMapping("snapshot")
+    private SpeciesSnapshotInfo writeSnapshot() {
+        return this.pokeApiMirrorService.writeSnapshot();
+    }
+
+    @GetMapping("snapshot")
+    private SpeciesSnapshotInfo getSnapshot() {
+        return this.pokeApiMirrorService.getSnapshot();
+    }
+}
@@ -1,6 +1,7 @@
 package com.mshindelar.lockegameservice.controller;
 
 import com.mshindelar.lockegameservice.dto.EncounterDto;
+import com.mshindelar.lockegameservice.dto.EncounterRollRequest;
 import com.mshindelar.lockegameservice.entity.EncounterGenerator.Encounter;
 import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterMode;
 import com.mshindelar.lockegameservice.entity.squadlocke.*;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/games/squadlocke")
@@ -42,9 +44,9 @@ public class SquadlockeController {
     }
 
     @PostMapping("{gameId}/join")
-    private Squadlocke join(@PathVariable(name = "gameId") String gameId, @RequestParam(name = "participantId") String participantId,
+    private CompletableFuture<Squadlocke> join(@PathVariable(name = "gameId") String gameId, @RequestParam(name = "participantId") String participantId,
                             @RequestParam("versionId") String versionId, @RequestParam("starterId") int starterId) {
-        return this.squadlockeService.joinSquadlocke(gameId, participantId, versionId, starterId);
+        return this.squadlockeService.joinSquadlockeAsync(gameId, participantId, versionId, starterId);
     }
 
     @PostMapping("{gameId}/start")
@@ -58,10 +60,15 @@ public class SquadlockeController {
     }
 
     @PostMapping("{gameId}/encounter")
-    private Encounter getEncounter(@PathVariable("gameId") String gameId, @RequestParam("participantId") String participantId, @RequestParam("locationId") String locationId,
-                                   @RequestParam("encounterMode") EncounterMode encounterMode,
-                                   @RequestParam(value = "filterSpeciesClause", required = false, defaultValue = "false") boolean filterSpeciesClause) {
-        return this.squadlockeService.getEncounter(gameId, participantId, locationId, encounterMode, filterSpeciesClause);
+    private CompletableFuture<Encounter> getEncounter(@PathVariable("gameId") String gameId, @RequestParam("participantId") String participantId, @RequestParam("locationId") String locationId,
+                                                      @RequestParam("encounterMode") EncounterMode encounterMode,
+                                                      @RequestParam(value = "filterSpeciesClause", required = false, defaultValue = "false") boolean filterSpeciesClause) {
+        return this.squadlockeService.getEncounterAsync(gameId, participantId, locationId, encounterMode, filterSpeciesClause);
+    }
+
+    @PostMapping("{gameId}/encounters")
+    private CompletableFuture<List<Encounter>> getEncounters(@PathVariable("gameId") String gameId, @RequestBody List<EncounterRollRequest> requests) {
+        return this.squadlockeService.getEncountersAsync(gameId, requests);
     }
 
     @PostMapping("{gameId}/encounter/update")
@@ -74,9 +81,10 @@ public class SquadlockeController {
     }
 
     @PostMapping("{gameId}/participants/{participantId}/encounter/evolve")
-    private SquadlockePokemon evolveEncounter(@PathVariable("gameId") String gameId, @PathVariable("participantId") String participantId,
-                                              @RequestParam("locationId") String locationId) {
-        return this.squadlockeService.evolveEncounter(gameId, participantId, locationId);
+    private CompletableFuture<SquadlockePokemon> evolveEncounter(@PathVariable("gameId") String gameId, @PathVariable("participantId") String participantId,
+                                                                 @RequestParam("locationId") String locationId,
+                                                                 @RequestParam(value = "evolutionId", required = false) Integer evolutionId) {
+        return this.squadlockeService.evolveEncounterAsync(gameId, participantId, locationId, evolutionId);
     }
 
     @GetMapping("{gameId}/participants/{participantId}")
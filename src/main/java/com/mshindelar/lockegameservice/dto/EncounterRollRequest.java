@@ -0,0 +1,12 @@
+package com.mshindelar.lockegameservice.dto;
+
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterMode;
+import lombok.Data;
+
+@Data
+public class EncounterRollRequest {
+    private String participantId;
+    private String locationId;
+    private EncounterMode encounterMode;
+    private boolean filterSpeciesClause;
+}
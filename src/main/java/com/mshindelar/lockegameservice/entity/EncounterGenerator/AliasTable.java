@@ -0,0 +1,65 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import org.apache.commons.rng.UniformRandomProvider;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Walker's alias method for sampling an index in proportion to its weight.
+ *
+ * Building the table is linear in the number of weights; each sample after
+ * that is constant time and allocates nothing.
+ */
+public class AliasTable {
+    private final double[] probability;
+    private final int[] alias;
+
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        if(n == 0) throw new IllegalArgumentException("Cannot build an alias table with no weights");
+
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        double total = 0;
+        for(double weight : weights) {
+            total += sanitize(weight);
+        }
+
+        // Split each index into a column of height 1, topping up the short
+        // columns with the excess from the tall ones
+        double[] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+
+        for(int i = 0; i < n; i++) {
+            scaled[i] = total > 0 ? sanitize(weights[i]) * n / total : 1.0;
+            (scaled[i] < 1.0 ? small : large).push(i);
+        }
+
+        while(!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+
+            this.probability[less] = scaled[less];
+            this.alias[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            (scaled[more] < 1.0 ? small : large).push(more);
+        }
+
+        // Whatever is left over is 1 up to rounding error
+        while(!large.isEmpty()) this.probability[large.pop()] = 1.0;
+        while(!small.isEmpty()) this.probability[small.pop()] = 1.0;
+    }
+
+    public int sample(UniformRandomProvider rng) {
+        int column = rng.nextInt(this.probability.length);
+        return rng.nextDouble() < this.probability[column] ? column : this.alias[column];
+    }
+
+    public int size() { return this.probability.length; }
+
+    private static double sanitize(double weight) { return weight > 0 && Double.isFinite(weight) ? weight : 0; }
+}
@@ -1,8 +1,70 @@
 package com.mshindelar.lockegameservice.entity.EncounterGenerator;
 
+import org.apache.commons.rng.UniformRandomProvider;
+
 import java.util.List;
+import java.util.function.IntPredicate;
 
+/**
+ * Picks encounters from a table. Generators hold no state; all randomness
+ * comes from the stream passed in, so a roll can be replayed exactly.
+ */
 public abstract class EncounterGenerator {
+    // Rolls to reject before giving up and sampling from a filtered table
+    private static final int MAX_REJECTIONS = 32;
+
+    public Encounter getEncounter(List<Encounter> encounters, UniformRandomProvider rng) {
+        return this.getEncounter(new EncounterTable(encounters), rng);
+    }
+
+    public Encounter getEncounter(EncounterTable table, UniformRandomProvider rng) {
+        if(table.isEmpty()) throw new IllegalArgumentException("No encounters are available");
+        return table.get(this.sample(table, rng));
+    }
+
+    /**
+     * Rolls an encounter from the table, skipping species that are not allowed.
+     *
+     * Rerolling until an allowed encounter comes up gives the same odds as
+     * rolling against a table with the disallowed encounters removed, without
+     * having to build that table. If most of the table is disallowed it is
+     * built after all.
+     *
+     * @throws IllegalArgumentException If no species in the table is allowed
+     */
+    public Encounter getEncounter(EncounterTable table, IntPredicate allowedSpecies, UniformRandomProvider rng) {
+        int index = this.sample(table, allowedSpecies, rng);
+        if(index < 0) throw new IllegalArgumentException("No encounters are available");
+
+        return table.get(index);
+    }
+
+    /**
+     * Picks the index of an encounter whose species is allowed, or -1 if no
+     * species in the table is allowed.
+     */
+    public int sample(EncounterTable table, IntPredicate allowedSpecies, UniformRandomProvider rng) {
+        if(table.isEmpty()) return -1;
+
+        for(int i = 0; i < MAX_REJECTIONS; i++) {
+            int index = this.sample(table, rng);
+            if(allowedSpecies.test(table.getNationalDexNumber(index))) return index;
+        }
+
+        EncounterTable allowed = table.filter(allowedSpecies);
+        if(allowed.isEmpty()) return -1;
+
+        // The filtered table keeps the original order, so the nth allowed entry maps back directly
+        int remaining = this.sample(allowed, rng);
+        for(int i = 0; i < table.size(); i++) {
+            if(allowedSpecies.test(table.getNationalDexNumber(i)) && remaining-- == 0) return i;
+        }
+
+        return -1;
+    }
 
-    public abstract Encounter getEncounter(List<Encounter> encounters);
+    /**
+     * Picks the index of an encounter in a non-empty table.
+     */
+    public abstract int sample(EncounterTable table, UniformRandomProvider rng);
 }
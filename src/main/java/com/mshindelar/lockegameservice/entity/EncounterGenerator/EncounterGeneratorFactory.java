@@ -1,14 +1,17 @@
 package com.mshindelar.lockegameservice.entity.EncounterGenerator;
 
 public class EncounterGeneratorFactory {
+    // Generators are stateless, so one of each is shared by every roll
+    private final EncounterGenerator evenEncounterGenerator = new EvenEncounterGenerator();
+    private final EncounterGenerator weightedEncounterGenerator = new WeightedEncounterGenerator();
 
     public EncounterGenerator getEncounterGenerator(EncounterProbability encounterProbability) {
         switch(encounterProbability) {
             case EVEN:
-                return new EvenEncounterGenerator();
+                return this.evenEncounterGenerator;
             case DEFAULT:
             default:
-                return new WeightedEncounterGenerator();
+                return this.weightedEncounterGenerator;
         }
     }
 }
@@ -0,0 +1,51 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Outcome of a bulk encounter import. Only the first few rejected rows are
+ * kept so a badly broken file cannot grow the result without bound.
+ */
+@Getter
+public class EncounterImportResult {
+    static final int MAXIMUM_REPORTED_ERRORS = 100;
+
+    private final EncounterImporter.Format format;
+    private final Date startedAt;
+    private long rowsRead;
+    private long rowsWritten;
+    private long rowsRejected;
+    private int batches;
+    private long elapsedMillis;
+    private boolean swapped;
+    private final List<String> errors;
+
+    EncounterImportResult(EncounterImporter.Format format) {
+        this.format = format;
+        this.startedAt = new Date();
+        this.errors = new ArrayList<>();
+    }
+
+    public long getRowsPerSecond() { return this.elapsedMillis > 0 ? this.rowsWritten * 1000 / this.elapsedMillis : this.rowsWritten; }
+
+    void read() { this.rowsRead++; }
+
+    void reject(long lineNumber, String reason) {
+        this.rowsRejected++;
+        if(this.errors.size() < MAXIMUM_REPORTED_ERRORS) this.errors.add("Line " + lineNumber + ": " + reason);
+    }
+
+    void written(int rows) {
+        this.rowsWritten += rows;
+        this.batches++;
+    }
+
+    void complete(long elapsedMillis, boolean swapped) {
+        this.elapsedMillis = elapsedMillis;
+        this.swapped = swapped;
+    }
+}
@@ -0,0 +1,314 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.RenameCollectionOptions;
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration;
+import com.mshindelar.lockegameservice.exception.DuplicateGameResourceException;
+import com.mshindelar.lockegameservice.exception.InvalidEncounterImportException;
+import com.mshindelar.lockegameservice.repository.MongoIndexManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Replaces the encounters collection with a dataset streamed from NDJSON or
+ * CSV.
+ *
+ * Rows are read one line at a time and written to a staging collection in
+ * unordered bulk batches, so memory stays flat however large the file is.
+ * The staging collection is given the managed encounter indexes and then
+ * renamed over the live one in a single step, and the encounter index is
+ * reloaded from it. Live traffic is served from the in-memory index
+ * throughout and never sees a partial load.
+ */
+public class EncounterImporter {
+    public enum Format { NDJSON, CSV }
+
+    private static final String[] COLUMNS = { "generationId", "gameId", "locationId", "mode", "nationalDexNumber", "defaultEncounterRate" };
+
+    private static Logger logger = LoggerFactory.getLogger(EncounterImporter.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EncounterIndex encounterIndex;
+
+    @Autowired
+    private MongoIndexManager mongoIndexManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LockeGameServiceConfiguration gameServiceConfiguration;
+
+    private final AtomicBoolean importing = new AtomicBoolean();
+
+    /**
+     * Imports every row of the input and swaps it in as the encounters
+     * collection. Nothing is swapped if more rows are rejected than allowed.
+     *
+     * @throws DuplicateGameResourceException If another import is already running
+     * @throws InvalidEncounterImportException If the input has no usable rows or too many bad ones
+     */
+    public EncounterImportResult importEncounters(InputStream input, Format format) {
+        if(!this.importing.compareAndSet(false, true)) {
+            throw new DuplicateGameResourceException("An encounter import is already running");
+        }
+
+        try {
+            return this.doImport(input, format);
+        } finally {
+            this.importing.set(false);
+        }
+    }
+
+    private EncounterImportResult doImport(InputStream input, Format format) {
+        LockeGameServiceConfiguration.EncounterProperties properties = this.gameServiceConfiguration.getEncounters();
+        String collection = this.mongoTemplate.getCollectionName(Encounter.class);
+        String staging = collection + "-import-" + System.currentTimeMillis();
+        EncounterImportResult result = new EncounterImportResult(format);
+        long started = System.nanoTime();
+
+        try {
+            this.stage(input, format, staging, properties.getImportBatchSize(), result);
+
+            if(result.getRowsRejected() > properties.getMaximumRejectedRows()) {
+                throw new InvalidEncounterImportException("Rejected " + result.getRowsRejected() + " of " + result.getRowsRead()
+                        + " rows, first error: " + result.getErrors().get(0));
+            }
+            if(result.getRowsWritten() == 0) throw new InvalidEncounterImportException("Import contained no encounters");
+
+            // Built before the swap so the live collection is never unindexed
+            this.mongoIndexManager.ensureIndexes(Encounter.class, staging);
+            this.mongoTemplate.getCollection(staging).renameCollection(
+                    new MongoNamespace(this.mongoTemplate.getDb().getName(), collection),
+                    new RenameCollectionOptions().dropTarget(true));
+        } catch(RuntimeException e) {
+            this.mongoTemplate.dropCollection(staging);
+            this.record(result, started, false);
+            throw e;
+        }
+
+        this.record(result, started, true);
+        logger.info("Imported " + result.getRowsWritten() + " encounters in " + result.getElapsedMillis() + "ms ("
+                + result.getRowsPerSecond() + " rows/s)");
+
+        this.encounterIndex.collectionReplaced();
+        return result;
+    }
+
+    private void stage(InputStream input, Format format, String staging, int batchSize, EncounterImportResult result) {
+        List<Encounter> batch = new ArrayList<>(batchSize);
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            Map<String, Integer> header = null;
+
+            if(format == Format.CSV) {
+                lineNumber++;
+                header = parseHeader(reader.readLine());
+            }
+
+            String line;
+            while((line = reader.readLine()) != null) {
+                lineNumber++;
+                if(line.trim().isEmpty()) continue;
+                result.read();
+
+                try {
+                    batch.add(format == Format.CSV ? this.parseCsv(line, header) : this.parseJson(line));
+                } catch(IllegalArgumentException e) {
+                    result.reject(lineNumber, e.getMessage());
+                    continue;
+                }
+
+                if(batch.size() >= batchSize) this.write(staging, batch, result);
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if(!batch.isEmpty()) this.write(staging, batch, result);
+    }
+
+    private void write(String staging, List<Encounter> batch, EncounterImportResult result) {
+        int inserted = this.mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Encounter.class, staging)
+                .insert(batch)
+                .execute()
+                .getInsertedCount();
+
+        result.written(inserted);
+        batch.clear();
+    }
+
+    private void record(EncounterImportResult result, long started, boolean swapped) {
+        long elapsedNanos = System.nanoTime() - started;
+        result.complete(TimeUnit.NANOSECONDS.toMillis(elapsedNanos), swapped);
+
+        Timer.builder("encounters.import")
+                .description("Time taken to stage and swap in an encounter import")
+                .tag("outcome", swapped ? "swapped" : "failed")
+                .register(this.meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        this.meterRegistry.counter("encounters.import.rows", "result", "written").increment(result.getRowsWritten());
+        this.meterRegistry.counter("encounters.import.rows", "result", "rejected").increment(result.getRowsRejected());
+    }
+
+    private Encounter parseJson(String line) {
+        JsonNode node;
+        try {
+            node = this.objectMapper.readTree(line);
+        } catch(JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+
+        if(!node.isObject()) throw new IllegalArgumentException("Expected a JSON object");
+        return toEncounter(column -> node.hasNonNull(column) ? node.get(column).asText() : null);
+    }
+
+    private Encounter parseCsv(String line, Map<String, Integer> header) {
+        List<String> values = splitCsv(line);
+        if(values.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + values.size());
+        }
+
+        return toEncounter(column -> values.get(header.get(column)));
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        if(line == null) throw new InvalidEncounterImportException("CSV import is missing its header row");
+
+        List<String> columns;
+        try {
+            columns = splitCsv(line);
+        } catch(IllegalArgumentException e) {
+            throw new InvalidEncounterImportException("CSV header is malformed: " + e.getMessage());
+        }
+
+        Map<String, Integer> header = new HashMap<>();
+        for(int i = 0; i < columns.size(); i++) header.put(columns.get(i).trim(), i);
+
+        for(String column : COLUMNS) {
+            if(!header.containsKey(column)) throw new InvalidEncounterImportException("CSV header is missing column " + column);
+        }
+
+        return header;
+    }
+
+    private static Encounter toEncounter(Function<String, String> field) {
+        Encounter encounter = new Encounter();
+        encounter.setGenerationId(required(field, "generationId"));
+        encounter.setGameId(parseInt(field, "gameId"));
+        encounter.setLocationId(required(field, "locationId"));
+        encounter.setNationalDexNumber(parseInt(field, "nationalDexNumber"));
+
+        String mode = required(field, "mode");
+        try {
+            encounter.setMode(EncounterMode.valueOf(mode.toUpperCase(Locale.ROOT)));
+        } catch(IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown encounter mode " + mode);
+        }
+
+        String rate = required(field, "defaultEncounterRate");
+        try {
+            encounter.setDefaultEncounterRate(Double.parseDouble(rate));
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("defaultEncounterRate is not a number: " + rate);
+        }
+
+        if(encounter.getNationalDexNumber() <= 0) throw new IllegalArgumentException("nationalDexNumber must be positive");
+        if(!(encounter.getDefaultEncounterRate() >= 0) || Double.isInfinite(encounter.getDefaultEncounterRate())) {
+            throw new IllegalArgumentException("defaultEncounterRate must be a non-negative number");
+        }
+
+        return encounter;
+    }
+
+    private static String required(Function<String, String> field, String column) {
+        String value = field.apply(column);
+        if(value == null || value.trim().isEmpty()) throw new IllegalArgumentException(column + " is required");
+        return value.trim();
+    }
+
+    private static int parseInt(Function<String, String> field, String column) {
+        String value = required(field, column);
+        try {
+            return Integer.parseInt(value);
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+    }
+
+    /**
+     * Splits a CSV line into its fields. Fields may be quoted, in which case
+     * they can hold commas and doubled quotes. Rows cannot span lines.
+     *
+     * @throws IllegalArgumentException If a quoted field is not closed or is followed by more text
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+
+        while(true) {
+            // Whitespace around a quoted field is ignored, inside an unquoted one it is trimmed later
+            int start = i;
+            while(i < line.length() && line.charAt(i) == ' ') i++;
+
+            if(i < line.length() && line.charAt(i) == '"') {
+                i++;
+                while(true) {
+                    if(i >= line.length()) throw new IllegalArgumentException("Unterminated quoted field");
+
+                    char c = line.charAt(i++);
+                    if(c != '"') {
+                        field.append(c);
+                    } else if(i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+
+                while(i < line.length() && line.charAt(i) == ' ') i++;
+                if(i < line.length() && line.charAt(i) != ',') throw new IllegalArgumentException("Unexpected text after quoted field");
+            } else {
+                i = start;
+                while(i < line.length() && line.charAt(i) != ',') {
+                    if(line.charAt(i) == '"') throw new IllegalArgumentException("Unexpected quote in unquoted field");
+                    field.append(line.charAt(i++));
+                }
+            }
+
+            fields.add(field.toString());
+            field.setLength(0);
+
+            if(i >= line.length()) return fields;
+            i++;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Every encounter table, held in memory so rolls never query the database.
+ *
+ * Organized as generation, game, location, then mode, with each mode's
+ * encounters compiled into an {@link EncounterTable}. The index is loaded
+ * once the application is ready and swapped out wholesale on reload, either
+ * from the admin endpoint or, when enabled, whenever the encounters
+ * collection's change stream reports a write.
+ */
+public class EncounterIndex implements DisposableBean {
+    private static final String ENCOUNTERS_COLLECTION = "encounters";
+
+    private static Logger logger = LoggerFactory.getLogger(EncounterIndex.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private LockeGameServiceConfiguration gameServiceConfiguration;
+
+    private volatile Map<String, Map<Integer, Map<String, LocationEncounters>>> generations = Collections.emptyMap();
+    private volatile boolean loaded = false;
+    private volatile Date loadedAt;
+    private volatile int encounterCount;
+    private volatile int locationCount;
+
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+    private MessageListenerContainer changeListener;
+
+    /**
+     * Gets the table to roll against for a location. Encounters for any of
+     * the modes are combined into one table.
+     */
+    public EncounterTable getEncounterTable(String generationId, int gameId, String locationId, Collection<EncounterMode> modes) {
+        this.ensureLoaded();
+
+        LocationEncounters location = this.generations.getOrDefault(generationId, Collections.emptyMap())
+                .getOrDefault(gameId, Collections.emptyMap())
+                .get(locationId);
+
+        return location != null ? location.getTable(modes) : empty(generationId, gameId, locationId);
+    }
+
+    /**
+     * Rebuilds the index from the encounters collection and swaps it in.
+     */
+    public synchronized void reload() {
+        this.reloadScheduled.set(false);
+
+        Map<String, Map<Integer, Map<String, EnumMap<EncounterMode, List<Encounter>>>>> grouped = new HashMap<>();
+        int encounters = 0;
+
+        Query query = new Query();
+        query.fields().exclude("model");
+
+        try(CloseableIterator<Encounter> it = this.mongoTemplate.stream(query, Encounter.class)) {
+            while(it.hasNext()) {
+                Encounter encounter = it.next();
+                if(encounter.getMode() == null || encounter.getLocationId() == null) continue;
+
+                grouped.computeIfAbsent(encounter.getGenerationId(), g -> new HashMap<>())
+                        .computeIfAbsent(encounter.getGameId(), g -> new HashMap<>())
+                        .computeIfAbsent(encounter.getLocationId(), l -> new EnumMap<>(EncounterMode.class))
+                        .computeIfAbsent(encounter.getMode(), m -> new ArrayList<>())
+                        .add(encounter);
+                encounters++;
+            }
+        }
+
+        Map<String, Map<Integer, Map<String, LocationEncounters>>> generations = new HashMap<>();
+        int locations = 0;
+
+        for(Map.Entry<String, Map<Integer, Map<String, EnumMap<EncounterMode, List<Encounter>>>>> generation : grouped.entrySet()) {
+            Map<Integer, Map<String, LocationEncounters>> games = new HashMap<>();
+
+            for(Map.Entry<Integer, Map<String, EnumMap<EncounterMode, List<Encounter>>>> game : generation.getValue().entrySet()) {
+                Map<String, LocationEncounters> byLocation = new HashMap<>();
+
+                for(Map.Entry<String, EnumMap<EncounterMode, List<Encounter>>> location : game.getValue().entrySet()) {
+                    EnumMap<EncounterMode, EncounterTable> tables = new EnumMap<>(EncounterMode.class);
+                    location.getValue().forEach((mode, list) -> tables.put(mode, new EncounterTable(list)));
+                    byLocation.put(location.getKey(), new LocationEncounters(generation.getKey(), game.getKey(), location.getKey(), tables));
+                    locations++;
+                }
+
+                games.put(game.getKey(), byLocation);
+            }
+
+            generations.put(generation.getKey(), games);
+        }
+
+        this.generations = generations;
+        this.encounterCount = encounters;
+        this.locationCount = locations;
+        this.loadedAt = new Date();
+        this.loaded = true;
+        logger.info("Indexed " + encounters + " encounters across " + locations + " locations");
+
+        this.eventPublisher.publishEvent(new EncounterIndexReloadedEvent(this));
+    }
+
+    public boolean isLoaded() { return this.loaded; }
+
+    public Date getLoadedAt() { return this.loadedAt; }
+
+    public int getEncounterCount() { return this.encounterCount; }
+
+    public int getLocationCount() { return this.locationCount; }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        this.taskScheduler.schedule(this::reloadQuietly, new Date());
+
+        if(this.gameServiceConfiguration.getEncounters().isWatchChanges()) this.watchChanges();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if(this.changeListener != null) this.changeListener.stop();
+    }
+
+    /**
+     * Reloads after the encounters collection has been swapped for a new one,
+     * e.g. by an import. Dropping the old collection ends any change stream
+     * on it, and the listener container does not restart ended streams, so
+     * the watch is started again on the new collection first.
+     */
+    public void collectionReplaced() {
+        if(this.gameServiceConfiguration.getEncounters().isWatchChanges()) {
+            synchronized(this) {
+                if(this.changeListener != null) this.changeListener.stop();
+                this.watchChanges();
+            }
+        }
+
+        this.reload();
+    }
+
+    /**
+     * Queues a reload a short while from now. Writes that land while one is
+     * queued are picked up by it, so a bulk edit triggers a single reload.
+     */
+    public void scheduleReload() {
+        if(!this.reloadScheduled.compareAndSet(false, true)) return;
+
+        long debounce = this.gameServiceConfiguration.getEncounters().getReloadDebounce().toMillis();
+        this.taskScheduler.schedule(this::reloadQuietly, new Date(System.currentTimeMillis() + debounce));
+    }
+
+    private synchronized void watchChanges() {
+        // Change streams need a replica set, without one the listener just logs the error
+        this.changeListener = new DefaultMessageListenerContainer(this.mongoTemplate);
+
+        MessageListener<ChangeStreamDocument<Document>, Document> listener = message -> this.scheduleReload();
+        ChangeStreamRequest<Document> request = ChangeStreamRequest.builder(listener)
+                .collection(ENCOUNTERS_COLLECTION)
+                .build();
+
+        this.changeListener.register(request, Document.class,
+                e -> logger.warn("Encounter change stream failed: " + e.getMessage()));
+        this.changeListener.start();
+        logger.info("Watching " + ENCOUNTERS_COLLECTION + " for changes");
+    }
+
+    private void ensureLoaded() {
+        if(this.loaded) return;
+
+        synchronized(this) {
+            if(!this.loaded) this.reload();
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            this.reload();
+        } catch(DataAccessException e) {
+            // Rolls will load the index themselves once the database is reachable
+            logger.warn("Could not load encounter index: " + e.getMessage());
+        }
+    }
+
+    private static EncounterTable empty(String generationId, int gameId, String locationId) {
+        return new EncounterTable(generationId, gameId, locationId, new EncounterMode[0], new int[0], new double[0]);
+    }
+
+    /**
+     * The tables for one location. Tables for a combination of modes are
+     * merged the first time they are asked for and kept, indexed by a bit
+     * mask of the modes.
+     */
+    private static class LocationEncounters {
+        private final String generationId;
+        private final int gameId;
+        private final String locationId;
+        private final EnumMap<EncounterMode, EncounterTable> byMode;
+        private final EncounterTable[] byModeMask;
+
+        LocationEncounters(String generationId, int gameId, String locationId, EnumMap<EncounterMode, EncounterTable> byMode) {
+            this.generationId = generationId;
+            this.gameId = gameId;
+            this.locationId = locationId;
+            this.byMode = byMode;
+            this.byModeMask = new EncounterTable[1 << EncounterMode.values().length];
+
+            byMode.forEach((mode, table) -> this.byModeMask[1 << mode.ordinal()] = table);
+        }
+
+        EncounterTable getTable(Collection<EncounterMode> modes) {
+            int mask = 0;
+            for(EncounterMode mode : modes) {
+                mask |= 1 << mode.ordinal();
+            }
+
+            // Tables are immutable, so racing to build the same one is harmless
+            EncounterTable table = this.byModeMask[mask];
+            if(table == null) {
+                List<EncounterTable> tables = new ArrayList<>();
+                for(EncounterMode mode : EncounterMode.values()) {
+                    if((mask & (1 << mode.ordinal())) != 0 && this.byMode.containsKey(mode)) tables.add(this.byMode.get(mode));
+                }
+
+                table = tables.isEmpty() ? empty(this.generationId, this.gameId, this.locationId) : EncounterTable.merge(tables);
+                this.byModeMask[mask] = table;
+            }
+
+            return table;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import lombok.Getter;
+
+import java.util.Date;
+
+@Getter
+public class EncounterIndexInfo {
+    private final boolean loaded;
+    private final Date loadedAt;
+    private final int locations;
+    private final int encounters;
+
+    public EncounterIndexInfo(EncounterIndex index) {
+        this.loaded = index.isLoaded();
+        this.loadedAt = index.getLoadedAt();
+        this.locations = index.getLocationCount();
+        this.encounters = index.getEncounterCount();
+    }
+}
@@ -0,0 +1,11 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after the {@link EncounterIndex} has been rebuilt from the
+ * encounters collection.
+ */
+public class EncounterIndexReloadedEvent extends ApplicationEvent {
+    public EncounterIndexReloadedEvent(EncounterIndex source) { super(source); }
+}
@@ -0,0 +1,191 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import org.apache.commons.rng.UniformRandomProvider;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Simulates players working through a set of routes, catching one encounter
+ * per route, and counts what they end up with.
+ *
+ * Runs are split into fixed size blocks, each drawing from its own roll
+ * stream of the seed, so results are the same however the blocks end up
+ * spread across workers. Counts are kept in primitive arrays indexed by a
+ * compact per-simulation species slot rather than by dex number.
+ */
+public class EncounterSimulation extends RecursiveTask<EncounterSimulation.Histogram> {
+    static final int RUNS_PER_BLOCK = 4096;
+
+    private final Routes routes;
+    private final EncounterGenerator generator;
+    private final boolean speciesClause;
+    private final long seed;
+    private final long fromRun;
+    private final long toRun;
+
+    public EncounterSimulation(List<EncounterTable> tables, EncounterGenerator generator, boolean speciesClause, long seed, long runs) {
+        this(new Routes(tables), generator, speciesClause, seed, 0, runs);
+    }
+
+    private EncounterSimulation(Routes routes, EncounterGenerator generator, boolean speciesClause, long seed, long fromRun, long toRun) {
+        this.routes = routes;
+        this.generator = generator;
+        this.speciesClause = speciesClause;
+        this.seed = seed;
+        this.fromRun = fromRun;
+        this.toRun = toRun;
+    }
+
+    /**
+     * National dex number for each species slot in the histogram.
+     */
+    public int[] getSpecies() { return this.routes.species; }
+
+    @Override
+    protected Histogram compute() {
+        long blocks = (this.toRun - this.fromRun + RUNS_PER_BLOCK - 1) / RUNS_PER_BLOCK;
+
+        if(blocks <= 1) return this.simulate();
+
+        // Split on a block boundary so every block keeps its own stream
+        long middle = this.fromRun + (blocks / 2) * RUNS_PER_BLOCK;
+        EncounterSimulation left = new EncounterSimulation(this.routes, this.generator, this.speciesClause, this.seed, this.fromRun, middle);
+        EncounterSimulation right = new EncounterSimulation(this.routes, this.generator, this.speciesClause, this.seed, middle, this.toRun);
+
+        left.fork();
+        Histogram histogram = right.compute();
+        histogram.add(left.join());
+        return histogram;
+    }
+
+    private Histogram simulate() {
+        UniformRandomProvider rng = RollStreams.forRoll(this.seed, this.fromRun / RUNS_PER_BLOCK);
+        Histogram histogram = new Histogram(this.routes.species.length);
+        long[] caught = new long[(this.routes.species.length >>> 6) + 1];
+
+        int[] slotOfDex = this.routes.slotOfDex;
+        // A species is allowed if it is not in the caught set for the current run
+        IntPredicate notCaught = dex -> (caught[slotOfDex[dex] >>> 6] & (1L << slotOfDex[dex])) == 0;
+
+        for(long run = this.fromRun; run < this.toRun; run++) {
+            Arrays.fill(caught, 0);
+            int duplicates = 0;
+
+            for(int route = 0; route < this.routes.tables.length; route++) {
+                EncounterTable table = this.routes.tables[route];
+                if(table.isEmpty()) continue;
+
+                int index = this.speciesClause ? this.generator.sample(table, notCaught, rng) : -1;
+                // With nothing left to reroll into, the clause cannot prevent a dupe
+                if(index < 0) index = this.generator.sample(table, rng);
+
+                int slot = this.routes.slots[route][index];
+                histogram.caught[slot]++;
+
+                long bit = 1L << slot;
+                if((caught[slot >>> 6] & bit) != 0) {
+                    duplicates++;
+                } else {
+                    caught[slot >>> 6] |= bit;
+                    histogram.runsCaught[slot]++;
+                    histogram.distinctSpecies++;
+                }
+            }
+
+            histogram.runs++;
+            histogram.duplicates += duplicates;
+            if(duplicates > 0) histogram.runsWithDuplicates++;
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Totals across every simulated run.
+     */
+    public static class Histogram {
+        // Times each species slot was caught
+        final long[] caught;
+        // Runs in which each species slot was caught at least once
+        final long[] runsCaught;
+        long runs;
+        long distinctSpecies;
+        long duplicates;
+        long runsWithDuplicates;
+
+        Histogram(int species) {
+            this.caught = new long[species];
+            this.runsCaught = new long[species];
+        }
+
+        void add(Histogram other) {
+            for(int i = 0; i < this.caught.length; i++) {
+                this.caught[i] += other.caught[i];
+                this.runsCaught[i] += other.runsCaught[i];
+            }
+            this.runs += other.runs;
+            this.distinctSpecies += other.distinctSpecies;
+            this.duplicates += other.duplicates;
+            this.runsWithDuplicates += other.runsWithDuplicates;
+        }
+
+        public long getRuns() { return this.runs; }
+
+        public long getCaught(int slot) { return this.caught[slot]; }
+
+        public long getRunsCaught(int slot) { return this.runsCaught[slot]; }
+
+        public long getDistinctSpecies() { return this.distinctSpecies; }
+
+        public long getDuplicates() { return this.duplicates; }
+
+        public long getRunsWithDuplicates() { return this.runsWithDuplicates; }
+    }
+
+    /**
+     * The route tables with every species mapped to a compact slot.
+     */
+    private static class Routes {
+        final EncounterTable[] tables;
+        final int[][] slots;
+        final int[] species;
+        final int[] slotOfDex;
+
+        Routes(List<EncounterTable> tables) {
+            this.tables = tables.toArray(new EncounterTable[0]);
+            this.slots = new int[this.tables.length][];
+
+            int maxDex = 0;
+            for(EncounterTable table : this.tables) {
+                for(int i = 0; i < table.size(); i++) {
+                    maxDex = Math.max(maxDex, table.getNationalDexNumber(i));
+                }
+            }
+
+            this.slotOfDex = new int[maxDex + 1];
+            Arrays.fill(this.slotOfDex, -1);
+            int[] species = new int[16];
+            int count = 0;
+
+            for(int route = 0; route < this.tables.length; route++) {
+                EncounterTable table = this.tables[route];
+                this.slots[route] = new int[table.size()];
+
+                for(int i = 0; i < table.size(); i++) {
+                    int dex = table.getNationalDexNumber(i);
+                    if(this.slotOfDex[dex] < 0) {
+                        if(count == species.length) species = Arrays.copyOf(species, count * 2);
+                        species[count] = dex;
+                        this.slotOfDex[dex] = count++;
+                    }
+                    this.slots[route][i] = this.slotOfDex[dex];
+                }
+            }
+
+            this.species = Arrays.copyOf(species, count);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Expected outcome of working through a route set under one encounter
+ * probability mode, estimated from simulated runs.
+ */
+@Getter
+public class EncounterSimulationResult {
+    private final EncounterProbability encounterProbability;
+    private final boolean speciesClause;
+    private final long runs;
+    private final int routes;
+    private final double expectedDistinctSpecies;
+    private final double expectedDuplicates;
+    // Chance that a run catches at least one species it already has
+    private final double duplicateProbability;
+    private final List<SpeciesOutcome> species;
+    private final long elapsedMillis;
+
+    public EncounterSimulationResult(EncounterProbability encounterProbability, boolean speciesClause, int routes, int[] speciesBySlot,
+                                     EncounterSimulation.Histogram histogram, long elapsedMillis) {
+        double runs = Math.max(1, histogram.getRuns());
+
+        this.encounterProbability = encounterProbability;
+        this.speciesClause = speciesClause;
+        this.runs = histogram.getRuns();
+        this.routes = routes;
+        this.expectedDistinctSpecies = histogram.getDistinctSpecies() / runs;
+        this.expectedDuplicates = histogram.getDuplicates() / runs;
+        this.duplicateProbability = histogram.getRunsWithDuplicates() / runs;
+        this.elapsedMillis = elapsedMillis;
+
+        this.species = new ArrayList<>(speciesBySlot.length);
+        for(int slot = 0; slot < speciesBySlot.length; slot++) {
+            this.species.add(new SpeciesOutcome(speciesBySlot[slot], histogram.getRunsCaught(slot) / runs, histogram.getCaught(slot) / runs));
+        }
+        this.species.sort(Comparator.comparingDouble(SpeciesOutcome::getCatchProbability).reversed());
+    }
+
+    @Getter
+    public static class SpeciesOutcome {
+        private final int nationalDexNumber;
+        // Chance a run catches the species at least once
+        private final double catchProbability;
+        private final double expectedCaught;
+
+        SpeciesOutcome(int nationalDexNumber, double catchProbability, double expectedCaught) {
+            this.nationalDexNumber = nationalDexNumber;
+            this.catchProbability = catchProbability;
+            this.expectedCaught = expectedCaught;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * The encounters available for a roll, compiled for repeated sampling.
+ *
+ * Entries are stored as parallel primitive arrays. Rolled encounters are
+ * materialized on demand, so every caller gets its own instance to fill in.
+ */
+public class EncounterTable {
+    private final String generationId;
+    private final int gameId;
+    private final String locationId;
+    private final EncounterMode[] modes;
+    private final int[] nationalDexNumbers;
+    private final double[] encounterRates;
+    private final AliasTable aliasTable;
+
+    public EncounterTable(List<Encounter> encounters) {
+        this(encounters.isEmpty() ? null : encounters.get(0).getGenerationId(),
+                encounters.isEmpty() ? 0 : encounters.get(0).getGameId(),
+                encounters.isEmpty() ? null : encounters.get(0).getLocationId(),
+                encounters.stream().map(Encounter::getMode).toArray(EncounterMode[]::new),
+                encounters.stream().mapToInt(Encounter::getNationalDexNumber).toArray(),
+                encounters.stream().mapToDouble(Encounter::getDefaultEncounterRate).toArray());
+    }
+
+    public EncounterTable(String generationId, int gameId, String locationId, EncounterMode[] modes, int[] nationalDexNumbers,
+                          double[] encounterRates) {
+        this.generationId = generationId;
+        this.gameId = gameId;
+        this.locationId = locationId;
+        this.modes = modes;
+        this.nationalDexNumbers = nationalDexNumbers;
+        this.encounterRates = encounterRates;
+        this.aliasTable = encounterRates.length > 0 ? new AliasTable(encounterRates) : null;
+    }
+
+    /**
+     * Combines the tables for several modes into a single table to roll against.
+     */
+    public static EncounterTable merge(List<EncounterTable> tables) {
+        if(tables.size() == 1) return tables.get(0);
+
+        EncounterTable first = tables.isEmpty() ? null : tables.get(0);
+        int size = tables.stream().mapToInt(EncounterTable::size).sum();
+
+        EncounterMode[] modes = new EncounterMode[size];
+        int[] nationalDexNumbers = new int[size];
+        double[] encounterRates = new double[size];
+
+        int offset = 0;
+        for(EncounterTable table : tables) {
+            System.arraycopy(table.modes, 0, modes, offset, table.size());
+            System.arraycopy(table.nationalDexNumbers, 0, nationalDexNumbers, offset, table.size());
+            System.arraycopy(table.encounterRates, 0, encounterRates, offset, table.size());
+            offset += table.size();
+        }
+
+        return new EncounterTable(first != null ? first.generationId : null, first != null ? first.gameId : 0,
+                first != null ? first.locationId : null, modes, nationalDexNumbers, encounterRates);
+    }
+
+    /**
+     * A table holding only the entries whose species passes the filter.
+     */
+    public EncounterTable filter(IntPredicate allowedSpecies) {
+        int[] kept = new int[this.size()];
+        int count = 0;
+
+        for(int i = 0; i < this.size(); i++) {
+            if(allowedSpecies.test(this.nationalDexNumbers[i])) kept[count++] = i;
+        }
+
+        EncounterMode[] modes = new EncounterMode[count];
+        int[] nationalDexNumbers = new int[count];
+        double[] encounterRates = new double[count];
+
+        for(int i = 0; i < count; i++) {
+            modes[i] = this.modes[kept[i]];
+            nationalDexNumbers[i] = this.nationalDexNumbers[kept[i]];
+            encounterRates[i] = this.encounterRates[kept[i]];
+        }
+
+        return new EncounterTable(this.generationId, this.gameId, this.locationId, modes, nationalDexNumbers, encounterRates);
+    }
+
+    public Encounter get(int index) {
+        Encounter encounter = new Encounter();
+        encounter.setGenerationId(this.generationId);
+        encounter.setGameId(this.gameId);
+        encounter.setLocationId(this.locationId);
+        encounter.setMode(this.modes[index]);
+        encounter.setNationalDexNumber(this.nationalDexNumbers[index]);
+        encounter.setDefaultEncounterRate(this.encounterRates[index]);
+        return encounter;
+    }
+
+    public List<Encounter> getEncounters() {
+        List<Encounter> encounters = new ArrayList<>(this.size());
+        for(int i = 0; i < this.size(); i++) {
+            encounters.add(this.get(i));
+        }
+        return encounters;
+    }
+
+    public int getNationalDexNumber(int index) { return this.nationalDexNumbers[index]; }
+
+    public double getEncounterRate(int index) { return this.encounterRates[index]; }
+
+    public int size() { return this.nationalDexNumbers.length; }
+
+    public boolean isEmpty() { return this.nationalDexNumbers.length == 0; }
+
+    /**
+     * Weighted by default encounter rate. Null if the table is empty.
+     */
+    public AliasTable getAliasTable() { return this.aliasTable; }
+
+    @Override
+    public String toString() {
+        return "EncounterTable(" + this.generationId + "/" + this.gameId + "/" + this.locationId + ", species="
+                + Arrays.toString(this.nationalDexNumbers) + ")";
+    }
+}
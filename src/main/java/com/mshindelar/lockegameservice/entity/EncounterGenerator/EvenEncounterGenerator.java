@@ -1,17 +1,11 @@
 package com.mshindelar.lockegameservice.entity.EncounterGenerator;
 
-import java.util.List;
-import java.util.Random;
+import org.apache.commons.rng.UniformRandomProvider;
 
 public class EvenEncounterGenerator extends EncounterGenerator {
 
-    private final Random rng;
-
-    public EvenEncounterGenerator() { this.rng = new Random(); }
-
     @Override
-    public Encounter getEncounter(List<Encounter> encounters) {
-        int randomIndex = this.rng.nextInt(encounters.size());
-        return encounters.get(randomIndex);
+    public int sample(EncounterTable table, UniformRandomProvider rng) {
+        return rng.nextInt(table.size());
     }
 }
@@ -0,0 +1,88 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Which locations each generation has, the encounter modes available at
+ * each, and how many distinct species can be encountered per mode.
+ *
+ * A generation's catalog is computed on first use with a single grouped
+ * aggregation, run server side against the generation/location/mode index,
+ * and then served from memory until the encounter tables change.
+ */
+public class LocationCatalog {
+    private static Logger logger = LoggerFactory.getLogger(LocationCatalog.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Map<String, Map<String, Map<EncounterMode, Integer>>> generations = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, so loads that started before one can tell
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Gets every location in a generation, mapped to the number of distinct
+     * species available for each of its encounter modes.
+     */
+    public Map<String, Map<EncounterMode, Integer>> getLocations(String generationId) {
+        Map<String, Map<EncounterMode, Integer>> locations = this.generations.get(generationId);
+        if(locations != null) return locations;
+
+        // Loaded outside the map so the aggregation does not hold a bin lock,
+        // at the cost of concurrent first callers each running it
+        long epoch = this.epoch.get();
+        locations = this.load(generationId);
+
+        Map<String, Map<EncounterMode, Integer>> existing = this.generations.putIfAbsent(generationId, locations);
+        if(existing != null) return existing;
+
+        // A load that raced an invalidation is returned but not kept
+        if(this.epoch.get() != epoch) this.generations.remove(generationId, locations);
+        return locations;
+    }
+
+    public List<EncounterMode> getModes(String generationId, String locationId) {
+        Map<EncounterMode, Integer> modes = this.getLocations(generationId).get(locationId);
+        return modes != null ? new ArrayList<>(modes.keySet()) : Collections.emptyList();
+    }
+
+    @EventListener(EncounterIndexReloadedEvent.class)
+    public void invalidate() {
+        this.epoch.incrementAndGet();
+        this.generations.clear();
+    }
+
+    private Map<String, Map<EncounterMode, Integer>> load(String generationId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("generationId").is(generationId)),
+                Aggregation.group("locationId", "mode").addToSet("nationalDexNumber").as("species"),
+                Aggregation.project().and("species").size().as("speciesCount"));
+
+        Map<String, Map<EncounterMode, Integer>> locations = new TreeMap<>();
+        List<Document> results = this.mongoTemplate.aggregate(aggregation, Encounter.class, Document.class).getMappedResults();
+
+        for(Document result : results) {
+            Document key = result.get("_id", Document.class);
+            String locationId = key.getString("locationId");
+            String mode = key.getString("mode");
+            if(locationId == null || mode == null) continue;
+
+            locations.computeIfAbsent(locationId, l -> new EnumMap<>(EncounterMode.class))
+                    .put(EncounterMode.valueOf(mode), result.getInteger("speciesCount"));
+        }
+
+        logger.info("Cataloged " + locations.size() + " locations for generation " + generationId);
+        return Collections.unmodifiableMap(locations);
+    }
+}
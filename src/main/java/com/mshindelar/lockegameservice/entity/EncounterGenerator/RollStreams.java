@@ -0,0 +1,48 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.core.source64.SplitMix64;
+
+/**
+ * Reproducible random streams for encounter rolls.
+ *
+ * Each participant seed defines one SplitMix64 sequence, and every roll gets
+ * its own window of that sequence, 2^32 outputs wide. Jumping to roll n is a
+ * single multiply since SplitMix64's state only ever advances by a constant,
+ * so any roll can be replayed from the seed and roll number alone, and no
+ * two rolls share random numbers.
+ */
+public final class RollStreams {
+    // SplitMix64's state increment
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final long ROLL_STRIDE = GOLDEN_GAMMA << 32;
+
+    private RollStreams() { }
+
+    /**
+     * Gets the stream for a participant's nth roll. The returned generator
+     * is not thread safe and is meant to be used for a single roll.
+     */
+    public static UniformRandomProvider forRoll(long seed, long roll) {
+        return new SplitMix64(mix(seed) + roll * ROLL_STRIDE);
+    }
+
+    /**
+     * Combines a participant's seed with their id, so participants that
+     * never had a seed assigned still get distinct streams. Seeds used to be
+     * 32 bits and keep the streams they always had; wider seeds fold in their
+     * high half so none of their bits are lost.
+     */
+    public static long participantSeed(long seed, String participantId) {
+        long idHash = participantId != null ? participantId.hashCode() & 0xFFFFFFFFL : 0;
+        long combined = (seed << 32) | idHash;
+        return seed == (int) seed ? combined : combined ^ mix(seed >>> 32);
+    }
+
+    // Stafford variant 13 finalizer, spreads nearby seeds across the sequence
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
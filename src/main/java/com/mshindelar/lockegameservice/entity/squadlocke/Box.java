@@ -2,15 +2,42 @@ package com.mshindelar.lockegameservice.entity.squadlocke;
 
 import com.mshindelar.lockegameservice.exception.DuplicateEncounterException;
 import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import org.springframework.data.annotation.Transient;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public class Box {
     private List<BoxItem> contents;
 
-    public Box() { this.contents = new LinkedList<>(); }
+    // Lookups over contents. Only contents is persisted, so these are built
+    // from it on first use and kept in step with every change after that.
+    // Partitions are keyed by position in the box so they list in box order.
+    @Transient
+    private transient Map<String, IndexedItem> itemsByLocation;
+    @Transient
+    private transient NavigableMap<Long, BoxItem> alive;
+    @Transient
+    private transient NavigableMap<Long, BoxItem> dead;
+    @Transient
+    private transient NavigableMap<Long, BoxItem> uncaught;
+    @Transient
+    private transient long nextPosition;
+
+    // Items from this index on have been added since the box was last
+    // written. Once an existing item is removed the whole box needs writing.
+    @Transient
+    private transient int savedSize;
+    @Transient
+    private transient boolean rewritten;
+
+    // National dex numbers of caught, non placeholder pokemon. Bits are set
+    // as pokemon are caught, and the set is rebuilt after any change that
+    // could clear one. Spring Data maps transient fields unless annotated.
+    @Transient
+    private transient BitSet caughtSpecies;
+
+    public Box() { this.contents = new ArrayList<>(); }
 
     /**
      * Adds pokemon to box.
@@ -25,20 +52,21 @@ public class Box {
      *  in the box.
      */
     public void add(SquadlockePokemon pokemon) {
-        BoxItem item = new BoxItem();
-        item.setPokemon(pokemon);
-        if(this.containsEncounterForLocation(pokemon.getLocationId())) {
-            BoxItem i = this.getBoxItemForLocation(pokemon.getLocationId());
+        IndexedItem existing = this.getItemsByLocation().get(pokemon.getLocationId());
 
+        if(existing != null) {
             // Checks to see if the user had a valid species clause
             // placeholder that we should overwrite
-            if(i.isPlaceholder() && this.containsSpecies(pokemon)) {
-                this.remove(i.getPokemon());
+            if(existing.item.isPlaceholder() && this.containsSpecies(pokemon)) {
+                this.remove(existing);
             } else {
                 throw new DuplicateEncounterException("Cannot catch pokemon. Encounter for " + pokemon.getLocationId() + " already exists");
             }
         }
 
+        BoxItem item = new BoxItem();
+        item.setPokemon(pokemon);
+
         // If the encounter is something that the user hasn't already caught,
         // it can automatically be flagged as not a placeholder.
         // Placeholder indicates that the user encountered a pokemon that they
@@ -48,18 +76,16 @@ public class Box {
         item.setCaught(false);
 
         this.contents.add(item);
+        this.track(item);
     }
 
     /**
      * Removes pokemon from box.
      */
     public void remove(SquadlockePokemon pokemon) {
-        BoxItem match = this.contents.stream()
-                .filter(i -> i.getPokemon().equals(pokemon))
-                .findFirst()
-                .orElse(null);
+        IndexedItem match = this.getItemsByLocation().get(pokemon.getLocationId());
 
-        this.contents.remove(match);
+        if(match != null && match.item.getPokemon().equals(pokemon)) this.remove(match);
     }
 
     /**
@@ -72,9 +98,7 @@ public class Box {
      * is found. False if no such pokemon exists in the box.
      */
     public boolean containsSpecies(int nationalDexNumber) {
-        return this.contents.stream()
-                .filter(i -> !i.isPlaceholder() && i.isCaught())
-                .anyMatch(i -> i.getPokemon().getModel().getId() == nationalDexNumber);
+        return nationalDexNumber >= 0 && this.getCaughtSpecies().get(nationalDexNumber);
     }
 
     public boolean containsSpecies(Pokemon pokemon) { return containsSpecies(pokemon.getId()); }
@@ -86,8 +110,7 @@ public class Box {
      * on a specified route.
      */
     public boolean containsEncounterForLocation(String locationId) {
-        return this.contents.stream()
-                .anyMatch(i -> i.getPokemon().getLocationId().equals(locationId));
+        return this.getItemsByLocation().containsKey(locationId);
     }
 
     /**
@@ -103,61 +126,50 @@ public class Box {
      * Gets all pokemon that are still alive from the box
      */
     public final List<SquadlockePokemon> getAlivePokemon() {
-        return this.contents.stream()
-                .map(BoxItem::getPokemon)
-                .filter(SquadlockePokemon::isAlive)
-                .collect(Collectors.toList());
+        this.getItemsByLocation();
+        return pokemonOf(this.alive);
     }
 
     /**
      * Gets all dead pokemon in the box
      */
     public final List<SquadlockePokemon> getDeadPokemon() {
-        return this.contents.stream()
-                .map(BoxItem::getPokemon)
-                .filter(p -> !p.isAlive())
-                .collect(Collectors.toList());
+        this.getItemsByLocation();
+        return pokemonOf(this.dead);
     }
 
     /**
      * Gets all encounters that were not caught
      */
     public final List<SquadlockePokemon> getUncaughtPokemon() {
-        return this.contents.stream()
-                .filter(i -> !i.isCaught())
-                .map(BoxItem::getPokemon)
-                .collect(Collectors.toList());
+        this.getItemsByLocation();
+        return pokemonOf(this.uncaught);
     }
 
     /**
      * Gets list of all encounters for location
      */
     public final List<String> getEncounterLocations() {
-        return this.contents.stream()
-                .map(BoxItem::getPokemon)
-                .map(SquadlockePokemon::getLocationId)
-                .collect(Collectors.toList());
+        return new ArrayList<>(this.getItemsByLocation().keySet());
     }
 
     /**
      * Gets the encounter for a particular location.
      */
     public SquadlockePokemon getEncounterForLocation(String locationId) {
-        return this.contents.stream()
-                .map(BoxItem::getPokemon)
-                .filter(p -> p.getLocationId().equals(locationId))
-                .findFirst()
-                .orElse(null);
+        IndexedItem indexed = this.getItemsByLocation().get(locationId);
+        return indexed != null ? indexed.item.getPokemon() : null;
     }
 
     /**
      * Updates box information for a particular encounter
      */
     public void updateEncounter(String locationId, String nickname, int abilityIndex, Nature nature, Gender gender, boolean isShiny) {
-        BoxItem item = this.getBoxItemForLocation(locationId);
+        IndexedItem indexed = this.getItemsByLocation().get(locationId);
 
-        if(item == null) return;
+        if(indexed == null) return;
 
+        BoxItem item = indexed.item;
         item.setPlaceholder(false);
         item.setCaught(true);
         item.getPokemon().setAlive(true);
@@ -166,23 +178,137 @@ public class Box {
         item.getPokemon().setNature(nature);
         item.getPokemon().setGender(gender);
         item.getPokemon().setShiny(isShiny);
+
+        this.reclassify(indexed);
+        if(this.caughtSpecies != null) this.caughtSpecies.set(item.getPokemon().getModel().getId());
+    }
+
+    /**
+     * Changes the species of a pokemon in the box, e.g. when it evolves.
+     */
+    public void evolve(SquadlockePokemon pokemon, Pokemon evolvedModel) {
+        pokemon.setModel(evolvedModel);
+        this.caughtSpecies = null;
     }
 
     /**
      * Updates the alive status of a pokemon in the box
      */
     public void killPokemon(String locationId) {
-        SquadlockePokemon pokemon = this.getEncounterForLocation(locationId);
-        pokemon.setAlive(false);
+        IndexedItem indexed = this.getItemsByLocation().get(locationId);
+        indexed.item.getPokemon().setAlive(false);
+        this.reclassify(indexed);
     }
 
     /**
-     * Gets the box item for a location.
+     * The items in the box, in box order.
      */
-    private BoxItem getBoxItemForLocation(String locationId) {
-        return this.contents.stream()
-                .filter(i -> i.getPokemon().getLocationId().equals(locationId))
-                .findFirst()
-                .orElse(null);
+    public List<BoxItem> items() { return Collections.unmodifiableList(this.contents); }
+
+    /**
+     * Items added since the box was last written, empty if the whole box
+     * needs writing instead.
+     */
+    public List<BoxItem> unsavedItems() {
+        this.getItemsByLocation();
+        return this.rewritten ? Collections.emptyList() : this.items().subList(this.savedSize, this.contents.size());
+    }
+
+    /**
+     * Whether an item was removed since the box was last written, so
+     * appending the unsaved items is not enough to bring it up to date.
+     */
+    public boolean needsRewrite() {
+        this.getItemsByLocation();
+        return this.rewritten;
+    }
+
+    public void markSaved() {
+        this.getItemsByLocation();
+        this.savedSize = this.contents.size();
+        this.rewritten = false;
+    }
+
+    private Map<String, IndexedItem> getItemsByLocation() {
+        if(this.itemsByLocation == null) {
+            this.itemsByLocation = new LinkedHashMap<>();
+            this.alive = new TreeMap<>();
+            this.dead = new TreeMap<>();
+            this.uncaught = new TreeMap<>();
+            this.nextPosition = 0;
+            this.savedSize = this.contents.size();
+            this.rewritten = false;
+
+            for(BoxItem item : this.contents) this.track(item);
+        }
+
+        return this.itemsByLocation;
+    }
+
+    private BitSet getCaughtSpecies() {
+        BitSet caught = this.caughtSpecies;
+
+        if(caught == null) {
+            caught = new BitSet();
+            for(IndexedItem indexed : this.getItemsByLocation().values()) {
+                BoxItem item = indexed.item;
+                if(!item.isPlaceholder() && item.isCaught() && item.getPokemon().getModel() != null) {
+                    caught.set(item.getPokemon().getModel().getId());
+                }
+            }
+            this.caughtSpecies = caught;
+        }
+
+        return caught;
+    }
+
+    private void track(BoxItem item) {
+        IndexedItem indexed = new IndexedItem(item, this.nextPosition++);
+        this.getItemsByLocation().put(item.getPokemon().getLocationId(), indexed);
+        this.classify(indexed);
+    }
+
+    private void remove(IndexedItem indexed) {
+        this.itemsByLocation.remove(indexed.item.getPokemon().getLocationId());
+        this.unclassify(indexed);
+        this.contents.removeIf(item -> item == indexed.item);
+        this.rewritten = true;
+
+        if(indexed.item.isCaught()) this.caughtSpecies = null;
+    }
+
+    private void classify(IndexedItem indexed) {
+        (indexed.item.getPokemon().isAlive() ? this.alive : this.dead).put(indexed.position, indexed.item);
+        if(!indexed.item.isCaught()) this.uncaught.put(indexed.position, indexed.item);
+    }
+
+    private void unclassify(IndexedItem indexed) {
+        this.alive.remove(indexed.position);
+        this.dead.remove(indexed.position);
+        this.uncaught.remove(indexed.position);
+    }
+
+    private void reclassify(IndexedItem indexed) {
+        this.unclassify(indexed);
+        this.classify(indexed);
+    }
+
+    private static List<SquadlockePokemon> pokemonOf(NavigableMap<Long, BoxItem> partition) {
+        return partition.values().stream()
+                .map(BoxItem::getPokemon)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A box item along with its position in the box.
+     */
+    private static class IndexedItem {
+        private final BoxItem item;
+        private final long position;
+
+        IndexedItem(BoxItem item, long position) {
+            this.item = item;
+            this.position = position;
+        }
     }
 }
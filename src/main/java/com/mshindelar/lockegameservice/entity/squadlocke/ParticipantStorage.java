@@ -0,0 +1,12 @@
+package com.mshindelar.lockegameservice.entity.squadlocke;
+
+/**
+ * Where a game keeps its participants.
+ */
+public enum ParticipantStorage {
+    // In the game document itself
+    EMBEDDED,
+    // One document per participant in their own collection, with only their
+    // ids kept on the game
+    SEPARATE
+}
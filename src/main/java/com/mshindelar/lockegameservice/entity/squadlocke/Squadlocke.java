@@ -4,11 +4,20 @@ import com.mshindelar.lockegameservice.entity.squadlocke.configuration.Squadlock
 import com.mshindelar.lockegameservice.entity.squadlocke.state.GameState;
 import com.mshindelar.lockegameservice.entity.squadlocke.state.RegistrationGameState;
 import com.mshindelar.lockegameservice.exception.GameResourceNotFoundException;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @Document(collection = "squadlocke")
@@ -22,18 +31,105 @@ public class Squadlocke {
     private GameState gameState;
     private Date createdAt;
     private int encounterTokens;
+    // Bumped by every write, a write made against an older version is rejected
+    @Version
+    private Long version;
+    // Where participants are kept, null for games from before there was a choice
+    private ParticipantStorage participantStorage;
+    // Ids of the players in the game when participants are stored separately,
+    // so games can still be found and joined by player
+    private Set<String> participantIds;
+
+    // Participants by id and how many of them are ready. Only participants is
+    // persisted, so these are built from it on first use and kept in step by
+    // the methods below. Player state changes need to go through the game for
+    // the count to stay right.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Transient
+    private transient Map<String, SquadlockeParticipant> participantsById;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @Transient
+    private transient int readyCount;
+
+    public void setParticipants(Set<SquadlockeParticipant> participants) {
+        this.participants = participants;
+        this.participantsById = null;
+    }
 
     public void addParticipant(SquadlockeParticipant squadlockeParticipant) {
-        participants.add(squadlockeParticipant);
+        Map<String, SquadlockeParticipant> byId = this.getParticipantsById();
+
+        if(participants.add(squadlockeParticipant)) {
+            byId.put(squadlockeParticipant.getId(), squadlockeParticipant);
+            if(this.storesParticipantsSeparately()) this.participantIds.add(squadlockeParticipant.getId());
+            if(squadlockeParticipant.getPlayerState() == PlayerState.READY) this.readyCount++;
+        }
     }
 
+    /**
+     * @throws GameResourceNotFoundException If the player is not in this game
+     */
     public SquadlockeParticipant getParticipantById(String participantId) {
-        return participants.stream().filter(participant -> participant.getId().equals(participantId)).findFirst().orElseThrow(() ->
-                new GameResourceNotFoundException("Player with id: " + participantId + " is not a participant in this game (id: " + this.getId() + ")"));
+        SquadlockeParticipant participant = this.getParticipantsById().get(participantId);
+
+        if(participant == null) {
+            throw new GameResourceNotFoundException("Player with id: " + participantId + " is not a participant in this game (id: " + this.getId() + ")");
+        }
+
+        return participant;
+    }
+
+    public Optional<SquadlockeParticipant> findParticipantById(String participantId) {
+        return Optional.ofNullable(this.getParticipantsById().get(participantId));
+    }
+
+    public boolean isParticipant(String participantId) {
+        // Separately stored participants are not always loaded with the game
+        if(this.storesParticipantsSeparately()) return this.participantIds.contains(participantId);
+        return this.getParticipantsById().containsKey(participantId);
+    }
+
+    public boolean storesParticipantsSeparately() { return this.participantStorage == ParticipantStorage.SEPARATE; }
+
+    /**
+     * Marks a player as ready.
+     *
+     * @throws GameResourceNotFoundException If the player is not in this game
+     */
+    public SquadlockeParticipant readyUp(String participantId) {
+        SquadlockeParticipant participant = this.getParticipantById(participantId);
+
+        if(participant.getPlayerState() != PlayerState.READY) {
+            participant.readyUp();
+            this.readyCount++;
+        }
+
+        return participant;
     }
 
     public boolean allPlayersReady() {
-        return this.participants.stream()
-                .anyMatch(p -> p.getPlayerState() != PlayerState.READY);
+        this.getParticipantsById();
+        return this.readyCount == this.participants.size();
+    }
+
+    private Map<String, SquadlockeParticipant> getParticipantsById() {
+        if(this.participantsById == null) {
+            Map<String, SquadlockeParticipant> byId = new HashMap<>();
+            int ready = 0;
+
+            for(SquadlockeParticipant participant : this.participants) {
+                byId.put(participant.getId(), participant);
+                if(participant.getPlayerState() == PlayerState.READY) ready++;
+            }
+
+            this.readyCount = ready;
+            this.participantsById = byId;
+        }
+
+        return this.participantsById;
     }
 }
@@ -1,6 +1,10 @@
 package com.mshindelar.lockegameservice.entity.squadlocke;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.RollStreams;
 import lombok.Data;
+import org.apache.commons.rng.UniformRandomProvider;
+import org.springframework.data.annotation.Transient;
 
 import java.util.HashSet;
 import java.util.Objects;
@@ -14,9 +18,18 @@ public class SquadlockeParticipant {
     private SquadlockePokemon immunitySlot;
     private Set<SquadlockeTeam> previousTeams;
     private Box box;
-    private int seed;
+    // Replaying rolls from the seed is how they are checked, so it is never sent to players
+    @JsonIgnore
+    private long seed;
     private int gameId;
     private int usedEncounterTokens;
+    // Encounter rolls made so far, each roll draws from its own stream of the seed
+    private long rollCount;
+    // Version of the participant's record when it was read, if the game
+    // stores participants separately. Not part of the participant itself.
+    @JsonIgnore
+    @Transient
+    private transient Long recordVersion;
 
     public SquadlockeParticipant(String id) {
         this.id = id;
@@ -28,6 +41,18 @@ public class SquadlockeParticipant {
         this.usedEncounterTokens = 0;
     }
 
+    /**
+     * Claims the next roll number for this participant.
+     */
+    public long nextRoll() { return this.rollCount++; }
+
+    /**
+     * The random stream for one of this participant's rolls.
+     */
+    public UniformRandomProvider getRollStream(long roll) {
+        return RollStreams.forRoll(RollStreams.participantSeed(this.seed, this.id), roll);
+    }
+
     public void readyUp() {
         this.setPlayerState(PlayerState.READY);
     }
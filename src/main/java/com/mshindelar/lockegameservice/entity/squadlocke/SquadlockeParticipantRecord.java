@@ -0,0 +1,39 @@
+package com.mshindelar.lockegameservice.entity.squadlocke;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A participant of a game that stores its participants separately.
+ */
+@Document(collection = "squadlocke-participants")
+@Data
+@NoArgsConstructor
+public class SquadlockeParticipantRecord {
+    @Id
+    private String id;
+    private String gameId;
+    private SquadlockeParticipant participant;
+    private Date createdAt;
+    // Bumped by every write, a write made against an older version is rejected
+    @Version
+    private Long version;
+
+    public SquadlockeParticipantRecord(String gameId, SquadlockeParticipant participant) {
+        this.id = idOf(gameId, participant.getId());
+        this.gameId = gameId;
+        this.participant = participant;
+        this.createdAt = new Date();
+    }
+
+    /**
+     * Record ids are the game id and participant id together, so a player
+     * has one record per game they are in.
+     */
+    public static String idOf(String gameId, String participantId) { return gameId + ":" + participantId; }
+}
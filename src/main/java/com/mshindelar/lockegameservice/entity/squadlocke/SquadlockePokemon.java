@@ -18,6 +18,8 @@ public class SquadlockePokemon {
     private Ability ability;
     private String locationId;
     private Date encounteredAt;
+    // Roll number the encounter came from, replaying it against the participant's seed gives the same species
+    private Long encounterRoll;
 
     @Override
     public boolean equals(Object o) {
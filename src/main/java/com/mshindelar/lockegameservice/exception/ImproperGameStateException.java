@@ -3,7 +3,7 @@ package com.mshindelar.lockegameservice.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
-@ResponseStatus(HttpStatus.NOT_ACCEPTABLE)
+@ResponseStatus(HttpStatus.BAD_REQUEST)
 public class ImproperGameStateException  extends RuntimeException {
     public ImproperGameStateException() { super(); }
 
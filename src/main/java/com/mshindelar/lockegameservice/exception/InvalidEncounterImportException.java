@@ -0,0 +1,7 @@
+package com.mshindelar.lockegameservice.exception;
+
+public class InvalidEncounterImportException extends RuntimeException {
+    public InvalidEncounterImportException() { super(); }
+
+    public InvalidEncounterImportException(String message) { super(message); }
+}
@@ -0,0 +1,7 @@
+package com.mshindelar.lockegameservice.exception;
+
+public class InvalidSimulationRequestException extends RuntimeException {
+    public InvalidSimulationRequestException() { super(); }
+
+    public InvalidSimulationRequestException(String message) { super(message); }
+}
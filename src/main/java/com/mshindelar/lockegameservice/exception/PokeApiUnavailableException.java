@@ -0,0 +1,7 @@
+package com.mshindelar.lockegameservice.exception;
+
+public class PokeApiUnavailableException extends RuntimeException {
+    public PokeApiUnavailableException() { super(); }
+
+    public PokeApiUnavailableException(String message) { super(message); }
+}
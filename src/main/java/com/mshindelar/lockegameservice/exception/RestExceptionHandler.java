@@ -1,5 +1,7 @@
 package com.mshindelar.lockegameservice.exception;
 
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -17,6 +19,41 @@ public class RestExceptionHandler {
         return buildApiErrorResponse(ex.getMessage(), ex.toString(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(DuplicateGameResourceException.class)
+    public ResponseEntity<ApiErrorResponse> handleDuplicateGameResourceException(DuplicateGameResourceException ex) {
+        return buildApiErrorResponse(ex.getMessage(), ex.toString(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ImproperGameStateException.class)
+    public ResponseEntity<ApiErrorResponse> handleImproperGameStateException(ImproperGameStateException ex) {
+        return buildApiErrorResponse(ex.getMessage(), ex.toString(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(PokeApiUnavailableException.class)
+    public ResponseEntity<ApiErrorResponse> handlePokeApiUnavailableException(PokeApiUnavailableException ex) {
+        return buildApiErrorResponse(ex.getMessage(), ex.toString(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ApiErrorResponse> handleTaskRejectedException(TaskRejectedException ex) {
+        return buildApiErrorResponse("Too many requests in progress, try again shortly", ex.toString(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return buildApiErrorResponse(ex.getMessage(), ex.toString(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(InvalidEncounterImportException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidEncounterImportException(InvalidEncounterImportException ex) {
+        return buildApiErrorResponse(ex.getMessage(), ex.toString(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidSimulationRequestException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidSimulationRequestException(InvalidSimulationRequestException ex) {
+        return buildApiErrorResponse(ex.getMessage(), ex.toString(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ApiErrorResponse> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
         return buildApiErrorResponse(ex.getMessage(), ex.toString(), HttpStatus.BAD_REQUEST);
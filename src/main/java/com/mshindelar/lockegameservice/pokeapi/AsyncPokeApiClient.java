@@ -0,0 +1,119 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChain;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart to {@link PokeApiClient}.
+ *
+ * Shares the same cache and mirror. Remote calls go out on the reactive
+ * HTTP stack so no thread is held while waiting on PokeAPI; mirror reads
+ * and writes, which are blocking, run on the async continuation executor,
+ * never on the event loop that completed the call. Stale cache
+ * hits are refreshed and failures are circuit broken the same way as the
+ * blocking client.
+ */
+public class AsyncPokeApiClient {
+
+    @Autowired
+    @Qualifier("pokeApiWebClient")
+    private WebClient webClient;
+
+    @Autowired
+    private PokeApiCache pokeApiCache;
+
+    @Autowired
+    private PokeApiMirror pokeApiMirror;
+
+    @Autowired
+    private PokeApiClient pokeApiClient;
+
+    @Autowired
+    private SpeciesSnapshot speciesSnapshot;
+
+    @Autowired
+    private CircuitBreaker pokeApiCircuitBreaker;
+
+    @Autowired
+    private ContinuationExecutor continuationExecutor;
+
+    private final SingleFlight<String, Pokemon> inFlightPokemon = new SingleFlight<>();
+    private final SingleFlight<Integer, EvolutionChain> inFlightEvolutionChains = new SingleFlight<>();
+
+    public CompletableFuture<Pokemon> getPokemon(int nationalDexNumber) {
+        Optional<Pokemon> snapshot = this.speciesSnapshot.findPokemon(nationalDexNumber);
+        if(snapshot.isPresent()) return CompletableFuture.completedFuture(snapshot.get());
+
+        Pokemon cached = this.pokeApiCache.getIfPresent(nationalDexNumber);
+        if(cached != null) return CompletableFuture.completedFuture(this.pokeApiClient.refreshIfStale(cached));
+
+        return this.inFlightPokemon.executeAsync(PokeApiClient.POKEMON_ENDPOINT_URL + nationalDexNumber, () ->
+                this.load(() -> this.pokeApiMirror.findPokemon(nationalDexNumber),
+                        PokeApiClient.POKEMON_ENDPOINT_URL + nationalDexNumber, Pokemon.class)
+                        .thenApply(this::cache));
+    }
+
+    public CompletableFuture<Pokemon> getPokemon(String name) {
+        Optional<Pokemon> snapshot = this.speciesSnapshot.findPokemon(name);
+        if(snapshot.isPresent()) return CompletableFuture.completedFuture(snapshot.get());
+
+        Pokemon cached = this.pokeApiCache.getIfPresent(name);
+        if(cached != null) return CompletableFuture.completedFuture(this.pokeApiClient.refreshIfStale(cached));
+
+        return this.inFlightPokemon.executeAsync(PokeApiClient.POKEMON_ENDPOINT_URL + name, () ->
+                this.load(() -> this.pokeApiMirror.findPokemon(name), PokeApiClient.POKEMON_ENDPOINT_URL + name, Pokemon.class)
+                        .thenApply(this::cache));
+    }
+
+    public CompletableFuture<EvolutionChain> getEvolutionChain(int evolutionChainId) {
+        EvolutionChain cached = this.pokeApiCache.getEvolutionChainIfPresent(evolutionChainId);
+        if(cached != null) return CompletableFuture.completedFuture(this.pokeApiClient.refreshIfStale(cached));
+
+        return this.inFlightEvolutionChains.executeAsync(evolutionChainId, () ->
+                this.load(() -> this.pokeApiMirror.findEvolutionChain(evolutionChainId),
+                        PokeApiClient.EVOLUTION_CHAIN_ENDPOINT_URL + evolutionChainId, EvolutionChain.class)
+                        .thenApply(chain -> {
+                            this.pokeApiCache.put(chain);
+                            return chain;
+                        }));
+    }
+
+    /**
+     * Checks the mirror first, then fetches from PokeAPI and writes the result
+     * back to the mirror.
+     */
+    private <T> CompletableFuture<T> load(Supplier<Optional<T>> mirrorLookup, String uri, Class<T> responseType) {
+        if(!this.pokeApiMirror.isReadThrough()) return this.fetch(uri, responseType);
+
+        return this.continuationExecutor.supply(mirrorLookup)
+                .thenCompose(mirrored -> mirrored.isPresent()
+                        ? CompletableFuture.completedFuture(mirrored.get())
+                        : this.continuationExecutor.thenApply(this.fetch(uri, responseType), this::mirror));
+    }
+
+    private <T> CompletableFuture<T> fetch(String uri, Class<T> responseType) {
+        return this.pokeApiCircuitBreaker.executeAsync(() -> this.webClient.get()
+                .uri(uri)
+                .retrieve()
+                .bodyToMono(responseType)
+                .toFuture());
+    }
+
+    private <T> T mirror(T value) {
+        if(value instanceof Pokemon) this.pokeApiMirror.save((Pokemon) value);
+        if(value instanceof EvolutionChain) this.pokeApiMirror.save((EvolutionChain) value);
+        return value;
+    }
+
+    private Pokemon cache(Pokemon pokemon) {
+        this.pokeApiCache.put(pokemon);
+        return pokemon;
+    }
+}
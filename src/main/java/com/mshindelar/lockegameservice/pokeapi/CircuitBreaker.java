@@ -0,0 +1,140 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import com.mshindelar.lockegameservice.exception.PokeApiUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Fails calls to an upstream fast once it has failed too many times in a row.
+ *
+ * After the open period elapses a single probe call is let through. If it
+ * succeeds the circuit closes again, otherwise it stays open for another
+ * period. Only errors matching the failure predicate count against the
+ * upstream; everything else, e.g. a 404, counts as a healthy response.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final Predicate<Throwable> isFailure;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+    private final Counter rejectedCalls;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Predicate<Throwable> isFailure, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.isFailure = isFailure;
+
+        Gauge.builder("circuit-breaker.state", this.state, s -> s.get().ordinal())
+                .description("0 = closed, 1 = open, 2 = half open")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.rejectedCalls = Counter.builder("circuit-breaker.rejected")
+                .description("Calls failed fast while the circuit was open")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        this.acquire();
+
+        try {
+            T result = call.get();
+            this.onSuccess();
+            return result;
+        } catch(RuntimeException | Error e) {
+            // Errors have to settle the call too, or a half open circuit keeps its probe forever
+            this.onError(e);
+            throw e;
+        }
+    }
+
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        try {
+            this.acquire();
+        } catch(PokeApiUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch(RuntimeException | Error e) {
+            this.onError(e);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return result.whenComplete((value, error) -> {
+            if(error == null) {
+                this.onSuccess();
+            } else {
+                this.onError(error);
+            }
+        });
+    }
+
+    public State getState() { return this.state.get(); }
+
+    private void acquire() {
+        if(!this.tryAcquire()) {
+            this.rejectedCalls.increment();
+            throw new PokeApiUnavailableException(this.name + " is currently unavailable, try again later.");
+        }
+    }
+
+    private boolean tryAcquire() {
+        switch(this.state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if(System.nanoTime() - this.openedAt < this.openDurationNanos) return false;
+                // Only the caller that moves the circuit to half open gets to probe
+                return this.state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            case HALF_OPEN:
+            default:
+                return false;
+        }
+    }
+
+    private void onSuccess() {
+        this.consecutiveFailures.set(0);
+
+        if(this.state.getAndSet(State.CLOSED) != State.CLOSED) {
+            logger.info("Circuit for " + this.name + " closed");
+        }
+    }
+
+    private void onError(Throwable error) {
+        // An Error says nothing about the upstream's health, so it never closes the circuit
+        if(!(error instanceof Error) && !this.isFailure.test(error)) {
+            this.onSuccess();
+            return;
+        }
+
+        if(this.state.get() == State.HALF_OPEN || this.consecutiveFailures.incrementAndGet() >= this.failureThreshold) {
+            this.openedAt = System.nanoTime();
+
+            if(this.state.getAndSet(State.OPEN) != State.OPEN) {
+                logger.warn("Circuit for " + this.name + " opened after " + this.consecutiveFailures.get() + " consecutive failures");
+            }
+        }
+    }
+}
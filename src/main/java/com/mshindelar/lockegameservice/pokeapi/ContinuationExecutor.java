@@ -0,0 +1,56 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking work that follows a non-blocking call on a bounded pool.
+ *
+ * The pool rejects work once it is saturated. A rejection fails the
+ * returned future instead of being thrown at whichever thread completed
+ * the previous stage, usually an event loop, so the request fails with a
+ * 503 rather than never completing.
+ */
+public class ContinuationExecutor {
+    private final TaskExecutor executor;
+
+    public ContinuationExecutor(TaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        this.run(result, work);
+        return result;
+    }
+
+    public <T, U> CompletableFuture<U> thenApply(CompletableFuture<T> stage, Function<? super T, ? extends U> work) {
+        CompletableFuture<U> result = new CompletableFuture<>();
+        stage.whenComplete((value, error) -> {
+            if(error != null) {
+                result.completeExceptionally(error);
+            } else {
+                this.run(result, () -> work.apply(value));
+            }
+        });
+        return result;
+    }
+
+    private <U> void run(CompletableFuture<U> result, Supplier<? extends U> work) {
+        try {
+            this.executor.execute(() -> {
+                try {
+                    result.complete(work.get());
+                } catch(Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch(RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
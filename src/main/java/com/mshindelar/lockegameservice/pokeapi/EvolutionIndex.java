@@ -0,0 +1,156 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChain;
+import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChainItem;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import com.mshindelar.lockegameservice.repository.EvolutionChainRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Flattened view of every known evolution chain.
+ *
+ * Each species id maps to the ids it can evolve into, including every
+ * branch, so evolving is an array lookup instead of a chain fetch and
+ * tree walk. The index is built from the mirrored chains on first use
+ * and grows as new chains are resolved. Species missing from the index are
+ * checked against the species snapshot before their chain is fetched.
+ */
+public class EvolutionIndex {
+    private static final int[] FINAL_STAGE = new int[0];
+
+    private static Logger logger = LoggerFactory.getLogger(EvolutionIndex.class);
+
+    @Autowired
+    private PokeApiClient pokeApiClient;
+
+    @Autowired
+    private EvolutionChainRepository evolutionChainRepository;
+
+    @Autowired
+    private SpeciesSnapshot speciesSnapshot;
+
+    // Indexed by species id. A null slot means the species has not been indexed yet.
+    // Published tables are never written to, changes go into a copy that replaces them.
+    private volatile int[][] nextEvolutions = new int[0][];
+    private volatile boolean loaded = false;
+
+    /**
+     * Gets the ids of every species the pokemon can evolve into. Returns an
+     * empty array if it is fully evolved.
+     */
+    public int[] getNextEvolutions(Pokemon pokemon) {
+        this.ensureLoaded();
+
+        int speciesId = speciesIdOf(pokemon);
+        int[] next = this.lookup(speciesId);
+        if(next == null) next = this.speciesSnapshot.getNextEvolutions(speciesId);
+
+        return next != null ? next : this.resolve(pokemon);
+    }
+
+    /**
+     * Gets the indexed evolutions for a species without resolving unknown
+     * species. Returns null if the species has not been indexed.
+     */
+    public int[] lookup(int speciesId) {
+        int[][] table = this.nextEvolutions;
+        return speciesId > 0 && speciesId < table.length ? table[speciesId] : null;
+    }
+
+    /**
+     * Adds every stage of a chain to the index.
+     */
+    public synchronized void index(EvolutionChain chain) {
+        if(chain == null || chain.getChain() == null) return;
+
+        // Lookups read the current table without locking, so fill in a copy of it
+        int[][] table = this.nextEvolutions;
+        this.nextEvolutions = index(Arrays.copyOf(table, table.length), chain.getChain());
+    }
+
+    /**
+     * Rebuilds the index from the mirrored evolution chains.
+     */
+    public synchronized void rebuild() {
+        int[][] table = new int[0][];
+        int chains = 0;
+
+        for(EvolutionChain chain : this.evolutionChainRepository.findAll()) {
+            if(chain.getChain() == null) continue;
+            table = index(table, chain.getChain());
+            chains++;
+        }
+
+        this.nextEvolutions = table;
+        this.loaded = true;
+        logger.info("Indexed " + chains + " evolution chains");
+    }
+
+    private void ensureLoaded() {
+        if(this.loaded) return;
+
+        synchronized(this) {
+            if(this.loaded) return;
+
+            try {
+                this.rebuild();
+            } catch(DataAccessException e) {
+                // Species will be resolved individually until the mirror is reachable
+                logger.warn("Could not build evolution index from mirror: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Pulls the chain for a species that is not yet indexed.
+     */
+    private int[] resolve(Pokemon pokemon) {
+        int speciesId = speciesIdOf(pokemon);
+        int evolutionChainId = pokemon.getEvolutionChainId() > 0
+                ? pokemon.getEvolutionChainId()
+                : this.pokeApiClient.fetchPokemonSpecies(speciesId).getEvolutionChainId();
+
+        this.index(this.pokeApiClient.getEvolutionChain(evolutionChainId));
+
+        int[] next = this.lookup(speciesId);
+        return next != null ? next : FINAL_STAGE;
+    }
+
+    // Alternate forms have their own pokemon id but share the species' chain
+    private static int speciesIdOf(Pokemon pokemon) {
+        return pokemon.getSpeciesId() > 0 ? pokemon.getSpeciesId() : pokemon.getId();
+    }
+
+    private static int[][] index(int[][] table, EvolutionChainItem item) {
+        List<EvolutionChainItem> evolvesTo = item.getEvolvesTo();
+        int[] next = FINAL_STAGE;
+
+        if(evolvesTo != null && !evolvesTo.isEmpty()) {
+            next = new int[evolvesTo.size()];
+            for(int i = 0; i < next.length; i++) {
+                next[i] = evolvesTo.get(i).getId();
+            }
+        }
+
+        if(item.getId() > 0) {
+            if(item.getId() >= table.length) {
+                table = Arrays.copyOf(table, Math.max(item.getId() + 1, table.length * 2));
+            }
+            table[item.getId()] = next;
+        }
+
+        if(evolvesTo != null) {
+            for(EvolutionChainItem child : evolvesTo) {
+                table = index(table, child);
+            }
+        }
+
+        return table;
+    }
+}
@@ -0,0 +1,159 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration.CacheProperties;
+import com.mshindelar.lockegameservice.pokeapi.model.Ability;
+import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChain;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Locale;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * In-process cache for species data pulled from PokeAPI.
+ *
+ * Pokemon are stored once, keyed by national dex number, and are weighed
+ * by their approximate retained size so the cache is bounded by memory
+ * rather than entry count. Names are kept as lightweight aliases onto the
+ * dex number so lookups by either key share the same entry.
+ *
+ * Entries live until they expire, but past the refresh age they are
+ * reported as stale so callers can revalidate them in the background while
+ * still serving the cached copy.
+ */
+public class PokeApiCache {
+    private static final int BASE_POKEMON_WEIGHT = 160;
+    private static final int ABILITY_WEIGHT = 64;
+    private static final int TYPE_WEIGHT = 48;
+
+    private final Cache<Integer, Pokemon> pokemonById;
+    private final Cache<String, Integer> pokemonIdsByName;
+    private final Cache<Integer, EvolutionChain> evolutionChains;
+    private final long refreshAfterMillis;
+
+    public PokeApiCache(CacheProperties properties, MeterRegistry meterRegistry) {
+        long ttlMillis = properties.getExpireAfterWrite().toMillis();
+        this.refreshAfterMillis = properties.getRefreshAfterWrite().toMillis();
+
+        this.pokemonById = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumWeight())
+                .weigher((Integer id, Pokemon pokemon) -> weigh(pokemon))
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        this.pokemonIdsByName = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumAliases())
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        this.evolutionChains = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumEvolutionChains())
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.pokemonById, "pokeapi.pokemon");
+        CaffeineCacheMetrics.monitor(meterRegistry, this.pokemonIdsByName, "pokeapi.pokemon-names");
+        CaffeineCacheMetrics.monitor(meterRegistry, this.evolutionChains, "pokeapi.evolution-chains");
+    }
+
+    /**
+     * Gets a pokemon by national dex number, loading and caching it on a miss.
+     */
+    public Pokemon getPokemon(int nationalDexNumber, IntFunction<Pokemon> loader) {
+        Pokemon pokemon = this.pokemonById.get(nationalDexNumber, loader::apply);
+
+        if(pokemon != null) {
+            this.pokemonIdsByName.put(normalize(pokemon.getName()), pokemon.getId());
+        }
+
+        return pokemon;
+    }
+
+    /**
+     * Gets a pokemon by name, loading and caching it on a miss.
+     *
+     * A name only resolves from the cache if both the alias and the
+     * underlying entry are still present.
+     */
+    public Pokemon getPokemon(String name, Function<String, Pokemon> loader) {
+        Pokemon cached = this.getIfPresent(name);
+        if(cached != null) return cached;
+
+        Pokemon pokemon = loader.apply(normalize(name));
+        this.put(pokemon);
+        return pokemon;
+    }
+
+    public Pokemon getIfPresent(int nationalDexNumber) { return this.pokemonById.getIfPresent(nationalDexNumber); }
+
+    public Pokemon getIfPresent(String name) {
+        Integer id = this.pokemonIdsByName.getIfPresent(normalize(name));
+        return id != null ? this.pokemonById.getIfPresent(id) : null;
+    }
+
+    public EvolutionChain getEvolutionChainIfPresent(int evolutionChainId) { return this.evolutionChains.getIfPresent(evolutionChainId); }
+
+    public EvolutionChain getEvolutionChain(int evolutionChainId, IntFunction<EvolutionChain> loader) {
+        return this.evolutionChains.get(evolutionChainId, loader::apply);
+    }
+
+    public void put(Pokemon pokemon) {
+        if(pokemon == null) return;
+
+        this.pokemonById.put(pokemon.getId(), pokemon);
+        this.pokemonIdsByName.put(normalize(pokemon.getName()), pokemon.getId());
+    }
+
+    public void put(EvolutionChain chain) {
+        if(chain != null) this.evolutionChains.put(chain.getId(), chain);
+    }
+
+    public boolean isStale(Pokemon pokemon) { return isStale(this.pokemonById, pokemon.getId(), this.refreshAfterMillis); }
+
+    public boolean isStale(EvolutionChain chain) { return isStale(this.evolutionChains, chain.getId(), this.refreshAfterMillis); }
+
+    public void invalidateAll() {
+        this.pokemonById.invalidateAll();
+        this.pokemonIdsByName.invalidateAll();
+        this.evolutionChains.invalidateAll();
+    }
+
+    private static <K, V> boolean isStale(Cache<K, V> cache, K key, long refreshAfterMillis) {
+        return cache.policy().expireAfterWrite()
+                .map(expiration -> expiration.ageOf(key, TimeUnit.MILLISECONDS))
+                .filter(OptionalLong::isPresent)
+                .map(age -> age.getAsLong() >= refreshAfterMillis)
+                .orElse(false);
+    }
+
+    private static String normalize(String name) { return name.trim().toLowerCase(Locale.ROOT); }
+
+    /**
+     * Rough retained size of a pokemon in bytes. Only needs to be
+     * proportional, not exact, for weighted eviction to behave.
+     */
+    private static int weigh(Pokemon pokemon) {
+        int weight = BASE_POKEMON_WEIGHT;
+
+        if(pokemon.getName() != null) weight += 2 * pokemon.getName().length();
+
+        if(pokemon.getAbilities() != null) {
+            for(Ability ability : pokemon.getAbilities()) {
+                weight += ABILITY_WEIGHT + (ability.getName() == null ? 0 : 2 * ability.getName().length());
+            }
+        }
+
+        if(pokemon.getTypes() != null) weight += TYPE_WEIGHT * pokemon.getTypes().size();
+
+        return weight;
+    }
+}
@@ -2,31 +2,174 @@ package com.mshindelar.lockegameservice.pokeapi;
 
 import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChain;
 import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import com.mshindelar.lockegameservice.pokeapi.model.PokemonSpecies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PokeApiClient {
+    private static Logger logger = LoggerFactory.getLogger(PokeApiClient.class);
 
-    private static final String API_BASE_URL = "http://pokeapi.co/api/v2/";
-    private static final String POKEMON_ENDPOINT_URL = API_BASE_URL + "pokemon/";
-    private static final String POKEMON_SPECIES_ENDPOINT_URL = API_BASE_URL + "pokemon-species/";
-    private static final String EVOLUTION_CHAIN_ENDPOINT_URL = API_BASE_URL + "evolution-chain/";
+    static final String API_BASE_URL = "https://pokeapi.co/api/v2/";
+    static final String POKEMON_ENDPOINT_URL = API_BASE_URL + "pokemon/";
+    static final String POKEMON_SPECIES_ENDPOINT_URL = API_BASE_URL + "pokemon-species/";
+    static final String EVOLUTION_CHAIN_ENDPOINT_URL = API_BASE_URL + "evolution-chain/";
 
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private PokeApiCache pokeApiCache;
+
+    @Autowired
+    private PokeApiMirror pokeApiMirror;
+
+    @Autowired
+    private SpeciesSnapshot speciesSnapshot;
+
+    @Autowired
+    private CircuitBreaker pokeApiCircuitBreaker;
+
+    @Autowired
+    @Qualifier("pokeApiRefreshExecutor")
+    private TaskExecutor refreshExecutor;
+
+    private final SingleFlight<String, Object> inFlightRequests = new SingleFlight<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
     public Pokemon getPokemon(int nationalDexNumber) {
-        String uri = POKEMON_ENDPOINT_URL + nationalDexNumber;
-        return this.restTemplate.getForObject(uri, Pokemon.class);
+        Optional<Pokemon> snapshot = this.speciesSnapshot.findPokemon(nationalDexNumber);
+        if(snapshot.isPresent()) return snapshot.get();
+
+        return this.refreshIfStale(this.pokeApiCache.getPokemon(nationalDexNumber, this::loadPokemon));
     }
 
     public Pokemon getPokemon(String name) {
-        String uri = POKEMON_ENDPOINT_URL + name;
-        return this.restTemplate.getForObject(uri, Pokemon.class);
+        Optional<Pokemon> snapshot = this.speciesSnapshot.findPokemon(name);
+        if(snapshot.isPresent()) return snapshot.get();
+
+        return this.refreshIfStale(this.pokeApiCache.getPokemon(name, this::loadPokemon));
     }
 
     public EvolutionChain getEvolutionChain(int evolutionChainId) {
-        String uri = EVOLUTION_CHAIN_ENDPOINT_URL + evolutionChainId;
-        return this.restTemplate.getForObject(uri, EvolutionChain.class);
+        return this.refreshIfStale(this.pokeApiCache.getEvolutionChain(evolutionChainId, this::loadEvolutionChain));
+    }
+
+    /**
+     * Schedules a background refresh of a cached pokemon past its refresh age.
+     * The cached copy is returned either way, so callers never wait on PokeAPI
+     * for data they already have.
+     */
+    public Pokemon refreshIfStale(Pokemon pokemon) {
+        if(pokemon != null && this.pokeApiCache.isStale(pokemon)) {
+            int id = pokemon.getId();
+            this.refreshInBackground(POKEMON_ENDPOINT_URL + id, () -> this.pokeApiCache.put(this.pokeApiMirror.save(this.fetchPokemon(id))));
+        }
+
+        return pokemon;
+    }
+
+    public EvolutionChain refreshIfStale(EvolutionChain chain) {
+        if(chain != null && this.pokeApiCache.isStale(chain)) {
+            int id = chain.getId();
+            this.refreshInBackground(EVOLUTION_CHAIN_ENDPOINT_URL + id, () -> this.pokeApiCache.put(this.pokeApiMirror.save(this.fetchEvolutionChain(id))));
+        }
+
+        return chain;
+    }
+
+    /**
+     * Whether an error from PokeAPI means it is unhealthy. Client errors such
+     * as a 404 for an unknown species are answers, not outages.
+     */
+    public static boolean isUpstreamFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+        if(cause instanceof HttpStatusCodeException) return isUpstreamFailure(((HttpStatusCodeException) cause).getStatusCode());
+        if(cause instanceof WebClientResponseException) return isUpstreamFailure(((WebClientResponseException) cause).getStatusCode());
+
+        return true;
+    }
+
+    /**
+     * Fetches a pokemon straight from PokeAPI, bypassing the cache and mirror.
+     */
+    public Pokemon fetchPokemon(int nationalDexNumber) {
+        return this.getForObject(POKEMON_ENDPOINT_URL + nationalDexNumber, Pokemon.class);
+    }
+
+    public Pokemon fetchPokemon(String name) {
+        return this.getForObject(POKEMON_ENDPOINT_URL + name, Pokemon.class);
+    }
+
+    public PokemonSpecies fetchPokemonSpecies(int nationalDexNumber) {
+        return this.getForObject(POKEMON_SPECIES_ENDPOINT_URL + nationalDexNumber, PokemonSpecies.class);
+    }
+
+    public EvolutionChain fetchEvolutionChain(int evolutionChainId) {
+        return this.getForObject(EVOLUTION_CHAIN_ENDPOINT_URL + evolutionChainId, EvolutionChain.class);
+    }
+
+    /**
+     * Issues a GET against PokeAPI. Concurrent requests for the same URI share
+     * a single outbound call, which fails fast while the circuit is open.
+     */
+    private <T> T getForObject(String uri, Class<T> responseType) {
+        return responseType.cast(this.inFlightRequests.execute(uri, () ->
+                this.pokeApiCircuitBreaker.execute(() -> this.restTemplate.getForObject(uri, responseType))));
+    }
+
+    private void refreshInBackground(String uri, Runnable refresh) {
+        if(!this.refreshing.add(uri)) return;
+
+        try {
+            this.refreshExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch(RuntimeException e) {
+                    // Keep serving the stale entry, the next read tries again
+                    logger.debug("Could not refresh " + uri + ": " + e.getMessage());
+                } finally {
+                    this.refreshing.remove(uri);
+                }
+            });
+        } catch(TaskRejectedException e) {
+            this.refreshing.remove(uri);
+        }
+    }
+
+    private static boolean isUpstreamFailure(HttpStatus status) {
+        return status.is5xxServerError() || status == HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Loads a pokemon on a cache miss. When read-through is enabled the local
+     * mirror is checked first and anything fetched remotely is written back to it.
+     */
+    private Pokemon loadPokemon(int nationalDexNumber) {
+        return this.pokeApiMirror.findPokemon(nationalDexNumber)
+                .orElseGet(() -> this.pokeApiMirror.save(this.fetchPokemon(nationalDexNumber)));
+    }
+
+    private Pokemon loadPokemon(String name) {
+        return this.pokeApiMirror.findPokemon(name)
+                .orElseGet(() -> this.pokeApiMirror.save(this.fetchPokemon(name)));
+    }
+
+    private EvolutionChain loadEvolutionChain(int evolutionChainId) {
+        return this.pokeApiMirror.findEvolutionChain(evolutionChainId)
+                .orElseGet(() -> this.pokeApiMirror.save(this.fetchEvolutionChain(evolutionChainId)));
     }
 }
@@ -0,0 +1,81 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration;
+import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChain;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import com.mshindelar.lockegameservice.repository.EvolutionChainRepository;
+import com.mshindelar.lockegameservice.repository.PokemonSpeciesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Read-through access to the local copy of PokeAPI data.
+ *
+ * Lookups come back empty when read-through is disabled, and an unreachable
+ * mirror degrades to remote fetches rather than failing the request.
+ */
+public class PokeApiMirror {
+
+    private static Logger logger = LoggerFactory.getLogger(PokeApiMirror.class);
+
+    @Autowired
+    private PokemonSpeciesRepository pokemonSpeciesRepository;
+
+    @Autowired
+    private EvolutionChainRepository evolutionChainRepository;
+
+    @Autowired
+    private LockeGameServiceConfiguration gameServiceConfiguration;
+
+    public Optional<Pokemon> findPokemon(int nationalDexNumber) {
+        return this.find(() -> this.pokemonSpeciesRepository.findById(nationalDexNumber));
+    }
+
+    public Optional<Pokemon> findPokemon(String name) {
+        return this.find(() -> this.pokemonSpeciesRepository.findByName(name));
+    }
+
+    public Optional<EvolutionChain> findEvolutionChain(int evolutionChainId) {
+        return this.find(() -> this.evolutionChainRepository.findById(evolutionChainId));
+    }
+
+    public Pokemon save(Pokemon pokemon) {
+        if(pokemon == null || !this.isReadThrough()) return pokemon;
+
+        try {
+            this.pokemonSpeciesRepository.save(pokemon);
+        } catch(DataAccessException e) {
+            logger.warn("Could not mirror pokemon " + pokemon.getId() + ": " + e.getMessage());
+        }
+        return pokemon;
+    }
+
+    public EvolutionChain save(EvolutionChain chain) {
+        if(chain == null || !this.isReadThrough()) return chain;
+
+        try {
+            this.evolutionChainRepository.save(chain);
+        } catch(DataAccessException e) {
+            logger.warn("Could not mirror evolution chain " + chain.getId() + ": " + e.getMessage());
+        }
+        return chain;
+    }
+
+    public boolean isReadThrough() { return this.gameServiceConfiguration.getPokeapi().getMirror().isReadThrough(); }
+
+    private <T> Optional<T> find(Supplier<Optional<T>> lookup) {
+        if(!this.isReadThrough()) return Optional.empty();
+
+        try {
+            return lookup.get();
+        } catch(DataAccessException e) {
+            logger.warn("PokeAPI mirror lookup failed, falling back to remote: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of a bulk copy of a generation's species into the local mirror.
+ */
+@Getter
+public class PokeApiMirrorJob {
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final int generationId;
+    private final Date startedAt;
+    private volatile State state;
+    private volatile Date completedAt;
+    private volatile int totalSpecies;
+    private final AtomicInteger mirroredSpecies;
+    private final AtomicInteger mirroredEvolutionChains;
+    private final List<Integer> failedSpecies;
+
+    public PokeApiMirrorJob(int generationId) {
+        this.generationId = generationId;
+        this.startedAt = new Date();
+        this.state = State.RUNNING;
+        this.mirroredSpecies = new AtomicInteger();
+        this.mirroredEvolutionChains = new AtomicInteger();
+        this.failedSpecies = Collections.synchronizedList(new LinkedList<>());
+    }
+
+    public boolean isRunning() { return this.state == State.RUNNING; }
+
+    public void setTotalSpecies(int totalSpecies) { this.totalSpecies = totalSpecies; }
+
+    public void complete(State state) {
+        this.completedAt = new Date();
+        this.state = state;
+    }
+}
@@ -0,0 +1,89 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key.
+ *
+ * The first caller for a key runs the call; anyone else asking for the
+ * same key while it is in flight waits on the same future instead of
+ * making their own call. Results are not retained once the call completes.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, flight);
+
+        if(existing != null) {
+            return join(existing);
+        }
+
+        try {
+            V value = call.get();
+            flight.complete(value);
+            return value;
+        } catch(RuntimeException | Error e) {
+            // Errors have to fail the flight too, or callers waiting on it never wake
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Asynchronous form of {@link #execute}. Every caller gets their own view of
+     * the shared flight, so cancelling or timing one out does not affect the others.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, flight);
+
+        if(existing != null) {
+            return existing.copy();
+        }
+
+        try {
+            call.get().whenComplete((value, error) -> {
+                this.inFlight.remove(key, flight);
+
+                if(error != null) {
+                    flight.completeExceptionally(error);
+                } else {
+                    flight.complete(value);
+                }
+            });
+        } catch(RuntimeException e) {
+            this.inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        } catch(Error e) {
+            this.inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+
+        return flight.copy();
+    }
+
+    public int getInFlightCount() { return this.inFlight.size(); }
+
+    /**
+     * Waits on another caller's flight, rethrowing its failure as-is so
+     * coalesced callers see the same exception the leader did.
+     */
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch(CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if(e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import com.mshindelar.lockegameservice.pokeapi.model.Ability;
+import com.mshindelar.lockegameservice.pokeapi.model.BaseStats;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import com.mshindelar.lockegameservice.pokeapi.model.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read-only view of a species snapshot written by {@link SpeciesSnapshotWriter}.
+ *
+ * The file is memory mapped rather than read onto the heap, and records
+ * are decoded straight out of the mapping on lookup. Lookups by id are an
+ * offset table read; lookups by name binary search a table of name hashes.
+ *
+ * Layout, all big endian:
+ * <pre>
+ * header       magic, version, species count, max id, name table offset
+ * offsets      int per id from 0 to max id, 0 when the id is absent
+ * records      id, species id, evolution chain id, six base stats as shorts,
+ *              name, types, abilities (hidden flag, name), next evolution ids
+ *              (a count of 0xFF when the species' chain is unknown)
+ * name table   (name hash, id) pairs sorted by hash
+ * </pre>
+ */
+public class SpeciesSnapshot {
+    static final int MAGIC = 0x4C475353;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+    // Written in place of the evolution count when the chain was never mirrored
+    static final int UNKNOWN_EVOLUTIONS = 0xFF;
+
+    private static Logger logger = LoggerFactory.getLogger(SpeciesSnapshot.class);
+
+    private final Path path;
+
+    // Null when no snapshot is configured or the file could not be mapped
+    private volatile ByteBuffer buffer;
+
+    public SpeciesSnapshot(String path) {
+        this.path = path == null || path.isBlank() ? null : Paths.get(path);
+        this.load();
+    }
+
+    /**
+     * Maps the snapshot file, replacing any previous mapping.
+     */
+    public synchronized void load() {
+        this.buffer = null;
+
+        if(this.path == null) return;
+
+        if(!Files.isReadable(this.path)) {
+            logger.info("No species snapshot found at " + this.path);
+            return;
+        }
+
+        try(FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                logger.warn("Ignoring species snapshot at " + this.path + ": unrecognized format");
+                return;
+            }
+
+            this.buffer = mapped;
+            logger.info("Mapped species snapshot with " + this.size() + " species from " + this.path);
+        } catch(IOException e) {
+            logger.warn("Could not map species snapshot at " + this.path + ": " + e.getMessage());
+        }
+    }
+
+    public boolean isLoaded() { return this.buffer != null; }
+
+    public Path getPath() { return this.path; }
+
+    public int size() {
+        ByteBuffer buffer = this.buffer;
+        return buffer != null ? buffer.getInt(8) : 0;
+    }
+
+    public long sizeInBytes() {
+        ByteBuffer buffer = this.buffer;
+        return buffer != null ? buffer.capacity() : 0;
+    }
+
+    public Optional<Pokemon> findPokemon(int id) {
+        ByteBuffer buffer = this.buffer;
+        if(buffer == null) return Optional.empty();
+
+        int offset = recordOffset(buffer, id);
+        return offset > 0 ? Optional.of(readPokemon(buffer, offset)) : Optional.empty();
+    }
+
+    public Optional<Pokemon> findPokemon(String name) {
+        ByteBuffer buffer = this.buffer;
+        if(buffer == null || name == null) return Optional.empty();
+
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        int hash = normalized.hashCode();
+
+        int tableOffset = buffer.getInt(16);
+        int entries = buffer.getInt(8);
+
+        // Find the first entry with the hash, then check each colliding name
+        int low = 0;
+        int high = entries;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(buffer.getInt(tableOffset + mid * 8) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        for(int i = low; i < entries && buffer.getInt(tableOffset + i * 8) == hash; i++) {
+            int offset = recordOffset(buffer, buffer.getInt(tableOffset + i * 8 + 4));
+            ByteBuffer record = buffer.duplicate();
+            record.position(offset + 24);
+
+            if(normalized.equals(readString(record))) return Optional.of(readPokemon(buffer, offset));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the ids a species evolves into, or null if it is not in the
+     * snapshot or its chain was unknown when the snapshot was written.
+     */
+    public int[] getNextEvolutions(int speciesId) {
+        ByteBuffer buffer = this.buffer;
+        if(buffer == null) return null;
+
+        int offset = recordOffset(buffer, speciesId);
+        if(offset == 0) return null;
+
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + 24);
+        skipString(record);
+
+        int types = record.get() & 0xFF;
+        for(int i = 0; i < types; i++) skipString(record);
+
+        int abilities = record.get() & 0xFF;
+        for(int i = 0; i < abilities; i++) {
+            record.get();
+            skipString(record);
+        }
+
+        return readEvolutions(record);
+    }
+
+    private static int recordOffset(ByteBuffer buffer, int id) {
+        int maxId = buffer.getInt(12);
+        return id > 0 && id <= maxId ? buffer.getInt(HEADER_SIZE + id * 4) : 0;
+    }
+
+    private static Pokemon readPokemon(ByteBuffer buffer, int offset) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset);
+
+        Pokemon pokemon = new Pokemon();
+        pokemon.setId(record.getInt());
+        pokemon.setSpeciesId(record.getInt());
+        pokemon.setEvolutionChainId(record.getInt());
+        pokemon.setBaseStats(new BaseStats(record.getShort(), record.getShort(), record.getShort(),
+                record.getShort(), record.getShort(), record.getShort()));
+        pokemon.setName(readString(record));
+
+        int typeCount = record.get() & 0xFF;
+        Set<Type> types = new HashSet<>();
+        for(int i = 0; i < typeCount; i++) {
+            Type type = new Type();
+            type.setName(readString(record));
+            types.add(type);
+        }
+        pokemon.setTypes(types);
+
+        int abilityCount = record.get() & 0xFF;
+        List<Ability> abilities = new ArrayList<>(abilityCount);
+        for(int i = 0; i < abilityCount; i++) {
+            Ability ability = new Ability();
+            ability.setHidden(record.get() != 0);
+            ability.setName(readString(record));
+            abilities.add(ability);
+        }
+        pokemon.setAbilities(abilities);
+
+        return pokemon;
+    }
+
+    private static int[] readEvolutions(ByteBuffer record) {
+        int count = record.get() & 0xFF;
+        if(count == UNKNOWN_EVOLUTIONS) return null;
+
+        int[] next = new int[count];
+        for(int i = 0; i < next.length; i++) {
+            next[i] = record.getInt();
+        }
+        return next;
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getShort() & 0xFFFF];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer record) {
+        int length = record.getShort() & 0xFFFF;
+        record.position(record.position() + length);
+    }
+}
@@ -0,0 +1,18 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import lombok.Getter;
+
+@Getter
+public class SpeciesSnapshotInfo {
+    private final String path;
+    private final boolean loaded;
+    private final int species;
+    private final long sizeInBytes;
+
+    public SpeciesSnapshotInfo(SpeciesSnapshot snapshot) {
+        this.path = snapshot.getPath() != null ? snapshot.getPath().toString() : null;
+        this.loaded = snapshot.isLoaded();
+        this.species = snapshot.size();
+        this.sizeInBytes = snapshot.sizeInBytes();
+    }
+}
@@ -0,0 +1,123 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import com.mshindelar.lockegameservice.pokeapi.model.Ability;
+import com.mshindelar.lockegameservice.pokeapi.model.BaseStats;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import com.mshindelar.lockegameservice.pokeapi.model.Type;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Compiles species data into the binary format read by {@link SpeciesSnapshot}.
+ */
+public class SpeciesSnapshotWriter {
+    private SpeciesSnapshotWriter() { }
+
+    /**
+     * Writes a snapshot of the given pokemon. The file is written alongside
+     * the target and moved into place, so a snapshot that is currently mapped
+     * is never modified underneath its readers.
+     *
+     * @param nextEvolutions Evolutions for a species id, or null if it is unknown
+     * @return The number of species written
+     */
+    public static int write(Path target, Collection<Pokemon> pokemon, IntFunction<int[]> nextEvolutions) throws IOException {
+        List<Pokemon> sorted = new ArrayList<>(pokemon);
+        sorted.removeIf(p -> p.getId() <= 0 || p.getName() == null);
+        sorted.sort(Comparator.comparingInt(Pokemon::getId));
+
+        int maxId = sorted.isEmpty() ? 0 : sorted.get(sorted.size() - 1).getId();
+        int recordsStart = SpeciesSnapshot.HEADER_SIZE + (maxId + 1) * 4;
+
+        int[] offsets = new int[maxId + 1];
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+
+        for(Pokemon p : sorted) {
+            offsets[p.getId()] = recordsStart + out.size();
+            writeRecord(out, p, nextEvolutions.apply(p.getSpeciesId() > 0 ? p.getSpeciesId() : p.getId()));
+        }
+
+        long[] nameTable = new long[sorted.size()];
+        for(int i = 0; i < nameTable.length; i++) {
+            Pokemon p = sorted.get(i);
+            int hash = p.getName().trim().toLowerCase(Locale.ROOT).hashCode();
+            nameTable[i] = ((long) hash << 32) | (p.getId() & 0xFFFFFFFFL);
+        }
+        Arrays.sort(nameTable);
+
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+
+        try {
+            try(DataOutputStream file = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                file.writeInt(SpeciesSnapshot.MAGIC);
+                file.writeInt(SpeciesSnapshot.VERSION);
+                file.writeInt(sorted.size());
+                file.writeInt(maxId);
+                file.writeInt(recordsStart + out.size());
+
+                for(int offset : offsets) file.writeInt(offset);
+
+                records.writeTo(file);
+
+                for(long entry : nameTable) file.writeLong(entry);
+            }
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        return sorted.size();
+    }
+
+    private static void writeRecord(DataOutputStream out, Pokemon pokemon, int[] nextEvolutions) throws IOException {
+        BaseStats stats = pokemon.getBaseStats() != null ? pokemon.getBaseStats() : new BaseStats();
+
+        out.writeInt(pokemon.getId());
+        out.writeInt(pokemon.getSpeciesId());
+        out.writeInt(pokemon.getEvolutionChainId());
+        out.writeShort(stats.getHp());
+        out.writeShort(stats.getAttack());
+        out.writeShort(stats.getDefense());
+        out.writeShort(stats.getSpecialAttack());
+        out.writeShort(stats.getSpecialDefense());
+        out.writeShort(stats.getSpeed());
+        writeString(out, pokemon.getName().trim().toLowerCase(Locale.ROOT));
+
+        Collection<Type> types = pokemon.getTypes() != null ? pokemon.getTypes() : Collections.emptySet();
+        out.writeByte(types.size());
+        for(Type type : types) {
+            writeString(out, type.getName());
+        }
+
+        Collection<Ability> abilities = pokemon.getAbilities() != null ? pokemon.getAbilities() : Collections.emptyList();
+        out.writeByte(abilities.size());
+        for(Ability ability : abilities) {
+            out.writeBoolean(ability.isHidden());
+            writeString(out, ability.getName());
+        }
+
+        if(nextEvolutions == null) {
+            out.writeByte(SpeciesSnapshot.UNKNOWN_EVOLUTIONS);
+            return;
+        }
+
+        out.writeByte(nextEvolutions.length);
+        for(int id : nextEvolutions) {
+            out.writeInt(id);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -1,11 +1,15 @@
 package com.mshindelar.lockegameservice.pokeapi.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.mshindelar.lockegameservice.entity.squadlocke.SquadlockePokemon;
 import lombok.Data;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
 
+@Document(collection = "evolution-chains")
+@JsonDeserialize(using = EvolutionChainDeserializer.class)
 @Data
 public class EvolutionChain {
     private int id;
@@ -38,7 +42,8 @@ public class EvolutionChain {
         }
 
         for(EvolutionChainItem eci : item.getEvolvesTo()) {
-            return getNextEvolution(eci, name);
+            List<EvolutionChainItem> next = getNextEvolution(eci, name);
+            if(next != null) return next;
         }
 
         return null;
@@ -0,0 +1,110 @@
+package com.mshindelar.lockegameservice.pokeapi.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming reader for /evolution-chain/{id} payloads. Keeps the species
+ * tree and skips evolution details.
+ */
+public class EvolutionChainDeserializer extends StdDeserializer<EvolutionChain> {
+
+    public EvolutionChainDeserializer() { super(EvolutionChain.class); }
+
+    @Override
+    public EvolutionChain deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if(!PokeApiJson.enterObject(parser)) return null;
+
+        EvolutionChain chain = new EvolutionChain();
+
+        for(JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch(field) {
+                case "id":
+                    chain.setId(parser.getIntValue());
+                    break;
+                case "baby_trigger_item":
+                    chain.setBabyTriggerItem(parser.currentToken() == JsonToken.VALUE_STRING
+                            ? parser.getText() : PokeApiJson.readResourceName(parser));
+                    break;
+                case "chain":
+                    chain.setChain(readItem(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return chain;
+    }
+
+    private static EvolutionChainItem readItem(JsonParser parser) throws IOException {
+        if(!PokeApiJson.enterObject(parser)) return null;
+
+        EvolutionChainItem item = new EvolutionChainItem();
+        item.setEvolvesTo(Collections.emptyList());
+
+        for(JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch(field) {
+                case "species":
+                    readSpecies(parser, item);
+                    break;
+                case "id":
+                    item.setId(parser.getIntValue());
+                    break;
+                case "name":
+                    item.setName(parser.getText());
+                    break;
+                case "is_baby":
+                    item.setBaby(parser.getBooleanValue());
+                    break;
+                case "evolves_to":
+                    item.setEvolvesTo(readItems(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return item;
+    }
+
+    private static List<EvolutionChainItem> readItems(JsonParser parser) throws IOException {
+        if(parser.currentToken() != JsonToken.START_ARRAY) return Collections.emptyList();
+
+        List<EvolutionChainItem> items = new ArrayList<>(2);
+        while(parser.nextToken() == JsonToken.START_OBJECT) {
+            items.add(readItem(parser));
+        }
+        return items;
+    }
+
+    private static void readSpecies(JsonParser parser, EvolutionChainItem item) throws IOException {
+        if(!PokeApiJson.enterObject(parser)) return;
+
+        for(JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if("name".equals(field)) {
+                item.setName(parser.getText());
+            } else if("url".equals(field)) {
+                item.setId(PokeApiJson.idFromUrl(parser.getText()));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+}
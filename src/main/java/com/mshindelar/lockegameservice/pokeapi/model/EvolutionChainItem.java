@@ -8,6 +8,7 @@ import java.util.Map;
 
 @Data
 public class EvolutionChainItem {
+    private int id;
     private String name;
     @JsonProperty("evolves_to")
     private List<EvolutionChainItem> evolvesTo;
@@ -17,5 +18,11 @@ public class EvolutionChainItem {
     @JsonProperty("species")
     public void pullSpeciesName(Map<String, Object> species) {
         this.name = (String) species.get("name");
+
+        String url = (String) species.get("url");
+        if(url != null) {
+            String[] tokens = url.split("/");
+            this.id = Integer.parseInt(tokens[tokens.length - 1]);
+        }
     }
 }
@@ -0,0 +1,77 @@
+package com.mshindelar.lockegameservice.pokeapi.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Streaming helpers shared by the PokeAPI deserializers.
+ */
+final class PokeApiJson {
+
+    private PokeApiJson() {}
+
+    /**
+     * Moves the parser onto the first field of the current object. Returns
+     * false if the current value is null.
+     */
+    static boolean enterObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+
+        if(token == JsonToken.VALUE_NULL) return false;
+        if(token == JsonToken.START_OBJECT) parser.nextToken();
+
+        return true;
+    }
+
+    /**
+     * Reads the name of a {"name": ..., "url": ...} resource reference,
+     * skipping everything else in it.
+     */
+    static String readResourceName(JsonParser parser) throws IOException {
+        if(!enterObject(parser)) return null;
+
+        String name = null;
+        for(JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if("name".equals(field)) {
+                name = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Reads the trailing id of a resource reference url, e.g.
+     * https://pokeapi.co/api/v2/pokemon-species/1/. Returns 0 if there is none.
+     */
+    static int readResourceId(JsonParser parser) throws IOException {
+        if(!enterObject(parser)) return 0;
+
+        int id = 0;
+        for(JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if("url".equals(field)) {
+                id = idFromUrl(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return id;
+    }
+
+    static int idFromUrl(String url) {
+        int end = url.length();
+        while(end > 0 && url.charAt(end - 1) == '/') end--;
+
+        int start = url.lastIndexOf('/', end - 1) + 1;
+        return start < end ? Integer.parseInt(url.substring(start, end)) : 0;
+    }
+}
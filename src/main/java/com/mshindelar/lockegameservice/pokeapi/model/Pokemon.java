@@ -1,11 +1,13 @@
 package com.mshindelar.lockegameservice.pokeapi.model;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
-import com.mshindelar.lockegameservice.pokeapi.PokeApiClient;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.*;
 
+@Document(collection = "pokemon-species")
+@JsonDeserialize(using = PokemonDeserializer.class)
 @Data
 public class Pokemon {
     private int id;
@@ -13,30 +15,9 @@ public class Pokemon {
     private List<Ability> abilities;
     private Set<Type> types;
     private BaseStats baseStats;
+    private int speciesId;
     private int evolutionChainId;
 
-    @JsonProperty("stats")
-    public void flattenStats(List<Object> stats) {
-        BaseStatsBuilder baseStatsBuilder = new BaseStatsBuilder();
-
-        for(Object stat : stats) {
-            String name = (String) ((LinkedHashMap)((LinkedHashMap) stat).get("stat")).get("name");
-            int value = (Integer) ((LinkedHashMap) stat).get("base_stat");
-            baseStatsBuilder.withStat(name, value);
-        }
-
-        this.baseStats = baseStatsBuilder.build();
-    }
-
-    @JsonProperty("evolution_chain")
-    public void pullEvolutionChainId(List<Object> evolutionChain) {
-        String url = (String) ((LinkedHashMap) evolutionChain).get("name");
-
-        String[] tokens = url.split("/");
-
-        this.evolutionChainId = Integer.parseInt(tokens[tokens.length - 1]);
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
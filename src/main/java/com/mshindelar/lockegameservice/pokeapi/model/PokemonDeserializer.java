@@ -0,0 +1,154 @@
+package com.mshindelar.lockegameservice.pokeapi.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streaming reader for /pokemon/{id} payloads.
+ *
+ * Only the fields the service keeps are read; moves, sprites, game indices
+ * and everything else are skipped at the token level without being bound.
+ * Also accepts the shape this service serializes pokemon in.
+ */
+public class PokemonDeserializer extends StdDeserializer<Pokemon> {
+
+    public PokemonDeserializer() { super(Pokemon.class); }
+
+    @Override
+    public Pokemon deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if(!PokeApiJson.enterObject(parser)) return null;
+
+        Pokemon pokemon = new Pokemon();
+
+        for(JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch(field) {
+                case "id":
+                    pokemon.setId(parser.getIntValue());
+                    break;
+                case "name":
+                    pokemon.setName(parser.getText());
+                    break;
+                case "abilities":
+                    pokemon.setAbilities(readAbilities(parser));
+                    break;
+                case "types":
+                    pokemon.setTypes(readTypes(parser));
+                    break;
+                case "stats":
+                    pokemon.setBaseStats(readStats(parser));
+                    break;
+                case "baseStats":
+                    pokemon.setBaseStats(context.readValue(parser, BaseStats.class));
+                    break;
+                case "species":
+                    pokemon.setSpeciesId(PokeApiJson.readResourceId(parser));
+                    break;
+                case "speciesId":
+                    pokemon.setSpeciesId(parser.getIntValue());
+                    break;
+                case "evolutionChainId":
+                    pokemon.setEvolutionChainId(parser.getIntValue());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return pokemon;
+    }
+
+    private static List<Ability> readAbilities(JsonParser parser) throws IOException {
+        if(parser.currentToken() != JsonToken.START_ARRAY) return null;
+
+        List<Ability> abilities = new ArrayList<>(3);
+        while(parser.nextToken() == JsonToken.START_OBJECT) {
+            Ability ability = new Ability();
+            parser.nextToken();
+
+            for(JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                switch(field) {
+                    case "ability":
+                        ability.setName(PokeApiJson.readResourceName(parser));
+                        break;
+                    case "name":
+                        ability.setName(parser.getText());
+                        break;
+                    case "is_hidden":
+                    case "hidden":
+                        ability.setHidden(parser.getBooleanValue());
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            abilities.add(ability);
+        }
+        return abilities;
+    }
+
+    private static Set<Type> readTypes(JsonParser parser) throws IOException {
+        if(parser.currentToken() != JsonToken.START_ARRAY) return null;
+
+        Set<Type> types = new HashSet<>(4);
+        while(parser.nextToken() == JsonToken.START_OBJECT) {
+            Type type = new Type();
+            parser.nextToken();
+
+            for(JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                if("type".equals(field)) {
+                    type.setName(PokeApiJson.readResourceName(parser));
+                } else if("name".equals(field)) {
+                    type.setName(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            types.add(type);
+        }
+        return types;
+    }
+
+    private static BaseStats readStats(JsonParser parser) throws IOException {
+        if(parser.currentToken() != JsonToken.START_ARRAY) return null;
+
+        BaseStatsBuilder baseStatsBuilder = new BaseStatsBuilder();
+        while(parser.nextToken() == JsonToken.START_OBJECT) {
+            String name = null;
+            int value = 0;
+            parser.nextToken();
+
+            for(JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                if("base_stat".equals(field)) {
+                    value = parser.getIntValue();
+                } else if("stat".equals(field)) {
+                    name = PokeApiJson.readResourceName(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if(name != null) baseStatsBuilder.withStat(name, value);
+        }
+        return baseStatsBuilder.build();
+    }
+}
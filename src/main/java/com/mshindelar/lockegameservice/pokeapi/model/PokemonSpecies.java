@@ -0,0 +1,23 @@
+package com.mshindelar.lockegameservice.pokeapi.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class PokemonSpecies {
+    private int id;
+    private String name;
+    private int evolutionChainId;
+
+    @JsonProperty("evolution_chain")
+    public void pullEvolutionChainId(Map<String, Object> evolutionChain) {
+        if(evolutionChain == null) return;
+
+        String url = (String) evolutionChain.get("url");
+        String[] tokens = url.split("/");
+
+        this.evolutionChainId = Integer.parseInt(tokens[tokens.length - 1]);
+    }
+}
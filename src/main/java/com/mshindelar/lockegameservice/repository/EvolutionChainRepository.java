@@ -0,0 +1,9 @@
+package com.mshindelar.lockegameservice.repository;
+
+import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChain;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EvolutionChainRepository extends MongoRepository<EvolutionChain, Integer> {
+}
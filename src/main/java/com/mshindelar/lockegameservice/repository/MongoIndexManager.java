@@ -0,0 +1,221 @@
+package com.mshindelar.lockegameservice.repository;
+
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.Encounter;
+import com.mshindelar.lockegameservice.entity.generic.GameGeneration;
+import com.mshindelar.lockegameservice.entity.squadlocke.Squadlocke;
+import com.mshindelar.lockegameservice.entity.squadlocke.SquadlockeParticipantRecord;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Declares the indexes each repository query relies on and makes sure they
+ * exist.
+ *
+ * Indexes are ensured in the background once the application is ready. For
+ * every repository query there is also a probe with the same filter shape,
+ * which can be explained against the live collections to confirm the query
+ * is still served by an index. With query plan verification enabled, a
+ * probe that falls back to a collection scan fails startup.
+ */
+public class MongoIndexManager {
+    public static final String ENCOUNTER_QUERY_INDEX = "generation_game_location_mode";
+    public static final String ENCOUNTER_CATALOG_INDEX = "generation_location_mode";
+
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+
+    private static final Map<Class<?>, List<Index>> INDEXES = new LinkedHashMap<>();
+    private static final List<QueryProbe> PROBES = new ArrayList<>();
+
+    static {
+        INDEXES.put(Encounter.class, Arrays.asList(
+                new Index()
+                        .on("generationId", Sort.Direction.ASC)
+                        .on("gameId", Sort.Direction.ASC)
+                        .on("locationId", Sort.Direction.ASC)
+                        .on("mode", Sort.Direction.ASC)
+                        .named(ENCOUNTER_QUERY_INDEX),
+                new Index()
+                        .on("generationId", Sort.Direction.ASC)
+                        .on("locationId", Sort.Direction.ASC)
+                        .on("mode", Sort.Direction.ASC)
+                        .on("nationalDexNumber", Sort.Direction.ASC)
+                        .named(ENCOUNTER_CATALOG_INDEX)));
+        INDEXES.put(Squadlocke.class, Arrays.asList(
+                new Index()
+                        .on("participants._id", Sort.Direction.ASC)
+                        .named("participant"),
+                new Index()
+                        .on("participantIds", Sort.Direction.ASC)
+                        .named("participant_ids"),
+                new Index()
+                        .on("settings.accessibility", Sort.Direction.ASC)
+                        .on("gameState.gameStateType", Sort.Direction.ASC)
+                        .named("accessibility_state")));
+        INDEXES.put(SquadlockeParticipantRecord.class, Collections.singletonList(
+                new Index()
+                        .on("gameId", Sort.Direction.ASC)
+                        .on("participant.playerState", Sort.Direction.ASC)
+                        .named("game_player_state")));
+        INDEXES.put(GameGeneration.class, Collections.singletonList(
+                new Index()
+                        .on("generationId", Sort.Direction.ASC)
+                        .unique()
+                        .named("generation")));
+        INDEXES.put(Pokemon.class, Collections.singletonList(
+                new Index()
+                        .on("name", Sort.Direction.ASC)
+                        .named("name")));
+
+        PROBES.add(new QueryProbe("EncounterRepository.findAllEncountersForLocation", Encounter.class,
+                new Document("generationId", "1").append("locationId", "probe").append("gameId", 1)));
+        PROBES.add(new QueryProbe("EncounterRepository.findEncountersForLocationByMode", Encounter.class,
+                new Document("generationId", "1").append("gameId", 1).append("locationId", "probe")
+                        .append("mode", new Document("$in", Arrays.asList("DAY", "NIGHT")))));
+        PROBES.add(new QueryProbe("SquadlockeRepository.findByParticipantId", Squadlocke.class,
+                new Document("$or", Arrays.asList(new Document("participants._id", "probe"), new Document("participantIds", "probe")))));
+        PROBES.add(new QueryProbe("SquadlockeRepository.findJoinableGames", Squadlocke.class,
+                new Document("settings.accessibility", "OPEN").append("gameState.gameStateType", "REGISTRATION")
+                        .append("participants._id", new Document("$nin", Collections.singletonList("probe")))
+                        .append("participantIds", new Document("$nin", Collections.singletonList("probe")))));
+        PROBES.add(new QueryProbe("SquadlockeParticipantRepository.findByGameIdIn", SquadlockeParticipantRecord.class,
+                new Document("gameId", new Document("$in", Collections.singletonList("probe")))));
+        PROBES.add(new QueryProbe("SquadlockeParticipantRepository.countByPlayerState", SquadlockeParticipantRecord.class,
+                new Document("gameId", "probe").append("participant.playerState", "READY")));
+        PROBES.add(new QueryProbe("GameGenerationRepository.findByGenerationId", GameGeneration.class,
+                new Document("generationId", 1)));
+        PROBES.add(new QueryProbe("PokemonSpeciesRepository.findByName", Pokemon.class,
+                new Document("name", "probe")));
+    }
+
+    private static Logger logger = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private LockeGameServiceConfiguration gameServiceConfiguration;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        LockeGameServiceConfiguration.IndexProperties properties = this.gameServiceConfiguration.getIndexes();
+
+        // Verification has to run before startup finishes for a failure to stop it
+        if(properties.isVerifyQueryPlans()) {
+            this.ensureIndexes();
+            this.verifyQueryPlans();
+        } else if(properties.isEnsureOnStartup()) {
+            this.taskScheduler.schedule(this::ensureIndexesQuietly, new Date());
+        }
+    }
+
+    /**
+     * Creates any declared index that is missing from its collection.
+     */
+    public void ensureIndexes() {
+        INDEXES.forEach((entity, indexes) -> this.ensureIndexes(entity, this.mongoTemplate.getCollectionName(entity)));
+    }
+
+    /**
+     * Creates an entity's declared indexes on the given collection, which
+     * need not be the entity's own, e.g. when staging a replacement for it.
+     */
+    public void ensureIndexes(Class<?> entity, String collection) {
+        for(Index index : INDEXES.getOrDefault(entity, Collections.emptyList())) {
+            this.mongoTemplate.indexOps(collection).ensureIndex(index);
+        }
+
+        logger.info("Ensured indexes on " + collection);
+    }
+
+    /**
+     * Explains every repository query probe against its collection.
+     */
+    public List<QueryPlanReport> explainQueries() {
+        return PROBES.stream()
+                .map(this::explain)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @throws IllegalStateException If any repository query would scan its whole collection
+     */
+    public List<QueryPlanReport> verifyQueryPlans() {
+        List<QueryPlanReport> reports = this.explainQueries();
+        List<String> scans = reports.stream()
+                .filter(QueryPlanReport::isCollectionScan)
+                .map(QueryPlanReport::getQuery)
+                .collect(Collectors.toList());
+
+        if(!scans.isEmpty()) throw new IllegalStateException("Queries fall back to a collection scan: " + String.join(", ", scans));
+
+        logger.info("Verified query plans for " + reports.size() + " repository queries");
+        return reports;
+    }
+
+    private QueryPlanReport explain(QueryProbe probe) {
+        String collection = this.mongoTemplate.getCollectionName(probe.entity);
+        Document command = new Document("explain", new Document("find", collection).append("filter", probe.filter))
+                .append("verbosity", "queryPlanner");
+
+        Document queryPlanner = this.mongoTemplate.executeCommand(command).get("queryPlanner", Document.class);
+        Object winningPlan = queryPlanner != null ? queryPlanner.get("winningPlan") : null;
+
+        List<String> stages = new ArrayList<>();
+        Set<String> indexes = new LinkedHashSet<>();
+        collectStages(winningPlan, stages, indexes);
+
+        return new QueryPlanReport(probe.name, collection, stages, new ArrayList<>(indexes), stages.contains(COLLECTION_SCAN));
+    }
+
+    /**
+     * Walks a winning plan, which nests stages through inputStage,
+     * inputStages and, on sharded clusters, shards.
+     */
+    private static void collectStages(Object plan, List<String> stages, Set<String> indexes) {
+        if(plan instanceof Document) {
+            Document stage = (Document) plan;
+            if(stage.containsKey("stage")) stages.add(stage.getString("stage"));
+            if(stage.containsKey("indexName")) indexes.add(stage.getString("indexName"));
+            stage.values().forEach(value -> collectStages(value, stages, indexes));
+        } else if(plan instanceof List) {
+            ((List<?>) plan).forEach(value -> collectStages(value, stages, indexes));
+        }
+    }
+
+    private void ensureIndexesQuietly() {
+        try {
+            this.ensureIndexes();
+        } catch(DataAccessException e) {
+            logger.warn("Could not ensure indexes: " + e.getMessage());
+        }
+    }
+
+    private static class QueryProbe {
+        private final String name;
+        private final Class<?> entity;
+        private final Document filter;
+
+        QueryProbe(String name, Class<?> entity, Document filter) {
+            this.name = name;
+            this.entity = entity;
+            this.filter = filter;
+        }
+    }
+}
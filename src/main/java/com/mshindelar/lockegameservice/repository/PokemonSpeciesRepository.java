@@ -0,0 +1,12 @@
+package com.mshindelar.lockegameservice.repository;
+
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PokemonSpeciesRepository extends MongoRepository<Pokemon, Integer> {
+    Optional<Pokemon> findByName(String name);
+}
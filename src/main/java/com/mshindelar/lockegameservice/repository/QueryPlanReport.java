@@ -0,0 +1,25 @@
+package com.mshindelar.lockegameservice.repository;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Winning plan for a repository query, as chosen by the query planner.
+ */
+@Getter
+public class QueryPlanReport {
+    private final String query;
+    private final String collection;
+    private final List<String> stages;
+    private final List<String> indexes;
+    private final boolean collectionScan;
+
+    public QueryPlanReport(String query, String collection, List<String> stages, List<String> indexes, boolean collectionScan) {
+        this.query = query;
+        this.collection = collection;
+        this.stages = stages;
+        this.indexes = indexes;
+        this.collectionScan = collectionScan;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mshindelar.lockegameservice.repository;
+
+import com.mshindelar.lockegameservice.entity.squadlocke.PlayerState;
+import com.mshindelar.lockegameservice.entity.squadlocke.SquadlockeParticipantRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SquadlockeParticipantRepository extends MongoRepository<SquadlockeParticipantRecord, String> {
+    List<SquadlockeParticipantRecord> findByGameIdIn(Collection<String> gameIds);
+
+    /**
+     * Counts a game's participants in a player state
+     */
+    @Query(value = "{ 'gameId': ?0, 'participant.playerState': ?1 }", count = true)
+    long countByPlayerState(String gameId, PlayerState playerState);
+}
@@ -9,19 +9,21 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SquadlockeRepository extends MongoRepository<Squadlocke, String> {
+public interface SquadlockeRepository extends MongoRepository<Squadlocke, String>, SquadlockeRepositoryCustom {
     Optional<Squadlocke> findById(String id);
 
     /**
-     * Gets all games a user is a participant of
+     * Gets all games a user is a participant of. Games that store participants
+     * separately are returned without them, see {@link #loadParticipants}.
      */
-    @Query("{ 'participants._id': ?0 }")
+    @Query("{ $or: [ { 'participants._id': ?0 }, { 'participantIds': ?0 } ] }")
     List<Squadlocke> findByParticipantId(String participantId);
 
     /**
      * Gets all games that have open accessibility, are in the registration phase, and
-     * that the current searcher is not a member of
+     * that the current searcher is not a member of. Games that store participants
+     * separately are returned without them, see {@link #loadParticipants}.
      */
-    @Query("{ 'settings.accessibility': 'OPEN', 'gameState.gameStateType': 'REGISTRATION', 'participants._id': { $nin: [?0]} }")
+    @Query("{ 'settings.accessibility': 'OPEN', 'gameState.gameStateType': 'REGISTRATION', 'participants._id': { $nin: [?0]}, 'participantIds': { $nin: [?0]} }")
     List<Squadlocke> findJoinableGames(String userId);
 }
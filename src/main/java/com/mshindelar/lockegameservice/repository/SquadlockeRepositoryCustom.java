@@ -0,0 +1,90 @@
+package com.mshindelar.lockegameservice.repository;
+
+import com.mshindelar.lockegameservice.entity.squadlocke.PlayerState;
+import com.mshindelar.lockegameservice.entity.squadlocke.Squadlocke;
+import com.mshindelar.lockegameservice.entity.squadlocke.SquadlockeParticipant;
+import com.mshindelar.lockegameservice.entity.squadlocke.SquadlockePokemon;
+import com.mshindelar.lockegameservice.entity.squadlocke.state.GameState;
+import com.mshindelar.lockegameservice.exception.GameResourceNotFoundException;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.Collection;
+
+/**
+ * Targeted updates to a single game. Each one touches only the
+ * participant it is about rather than rewriting the whole document, so
+ * participants acting at the same time do not overwrite each other.
+ *
+ * Games either embed their participants or store each of them as a
+ * {@link com.mshindelar.lockegameservice.entity.squadlocke.SquadlockeParticipantRecord}
+ * of their own, keeping only their ids on the game. Reads of a game do not
+ * include separately stored participants until {@link #loadParticipants}
+ * is called, and updates about a single participant of such a game touch
+ * only their record.
+ *
+ * Every update is made against the version of the document that was read
+ * and bumps it, failing with an {@link OptimisticLockingFailureException}
+ * if it has changed since. On success the given game's or participant's
+ * version is brought up to date. Otherwise every method returns false if
+ * nothing matched, e.g. the game or participant no longer exists or a
+ * precondition no longer holds.
+ */
+public interface SquadlockeRepositoryCustom {
+
+    /**
+     * Inserts a new game along with its participants.
+     */
+    Squadlocke createGame(Squadlocke squadlocke);
+
+    /**
+     * Adds separately stored participants to games read without them.
+     */
+    void loadParticipants(Collection<Squadlocke> games);
+
+    /**
+     * Gets a participant of a game, reading just their record if the game
+     * stores participants separately and they are not loaded.
+     *
+     * @throws GameResourceNotFoundException If the player is not in the game
+     */
+    SquadlockeParticipant getParticipant(Squadlocke squadlocke, String participantId);
+
+    /**
+     * Whether every participant is ready, as currently stored for games that
+     * store participants separately.
+     */
+    boolean allPlayersReady(Squadlocke squadlocke);
+
+    /**
+     * Adds a participant, as long as the game is still in registration and
+     * they have not already joined. A separately stored participant's record
+     * is written before they are added to the game, and removed again if they
+     * cannot be added.
+     *
+     * @throws OptimisticLockingFailureException If the player is already
+     *  joining the game in another request
+     */
+    boolean addParticipant(Squadlocke squadlocke, SquadlockeParticipant participant);
+
+    boolean setPlayerState(Squadlocke squadlocke, SquadlockeParticipant participant, PlayerState playerState);
+
+    /**
+     * Writes encounters rolled since the participants' boxes were last
+     * saved, along with their roll counts. Separately stored participants
+     * are written one at a time, so if one of them fails those before it
+     * stay written. Callers that need to know which were written should
+     * save them one per call.
+     */
+    boolean saveEncounters(Squadlocke squadlocke, Collection<SquadlockeParticipant> participants);
+
+    /**
+     * Writes the pokemon at a location in a participant's box, marking it
+     * caught.
+     */
+    boolean saveCaughtEncounter(Squadlocke squadlocke, SquadlockeParticipant participant, SquadlockePokemon pokemon);
+
+    boolean setGameState(Squadlocke squadlocke, GameState gameState);
+
+    boolean setEncounterModel(Squadlocke squadlocke, SquadlockeParticipant participant, String locationId, Pokemon model);
+}
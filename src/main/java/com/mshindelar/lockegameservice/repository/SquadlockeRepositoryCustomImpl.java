@@ -0,0 +1,306 @@
+package com.mshindelar.lockegameservice.repository;
+
+import com.mshindelar.lockegameservice.entity.squadlocke.*;
+import com.mshindelar.lockegameservice.entity.squadlocke.state.GameState;
+import com.mshindelar.lockegameservice.entity.squadlocke.state.GameStateType;
+import com.mshindelar.lockegameservice.exception.GameResourceNotFoundException;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class SquadlockeRepositoryCustomImpl implements SquadlockeRepositoryCustom {
+    private static final String VERSION = "version";
+    private static final String PARTICIPANT = "participants.$[participant]";
+    private static final String RECORD_PARTICIPANT = "participant";
+    // Joins take milliseconds, a record this old without its player on the game was left by one that died
+    private static final Duration ABANDONED_JOIN_AGE = Duration.ofMinutes(1);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SquadlockeParticipantRepository participantRepository;
+
+    @Override
+    public Squadlocke createGame(Squadlocke squadlocke) {
+        Set<SquadlockeParticipant> participants = squadlocke.getParticipants();
+
+        if(!squadlocke.storesParticipantsSeparately()) {
+            Squadlocke created = this.mongoTemplate.insert(squadlocke);
+            participants.forEach(participant -> participant.getBox().markSaved());
+            return created;
+        }
+
+        squadlocke.setParticipantIds(participants.stream()
+                .map(SquadlockeParticipant::getId)
+                .collect(Collectors.toSet()));
+        squadlocke.setParticipants(new HashSet<>());
+
+        Squadlocke created = this.mongoTemplate.insert(squadlocke);
+        participants.forEach(participant -> this.insertRecord(created.getId(), participant));
+        created.setParticipants(participants);
+
+        return created;
+    }
+
+    @Override
+    public void loadParticipants(Collection<Squadlocke> games) {
+        Map<String, Set<SquadlockeParticipant>> participantsByGame = new HashMap<>();
+
+        for(Squadlocke squadlocke : games) {
+            if(squadlocke.storesParticipantsSeparately()) participantsByGame.put(squadlocke.getId(), new HashSet<>());
+        }
+
+        if(participantsByGame.isEmpty()) return;
+
+        for(SquadlockeParticipantRecord record : this.participantRepository.findByGameIdIn(participantsByGame.keySet())) {
+            participantsByGame.get(record.getGameId()).add(participantOf(record));
+        }
+
+        for(Squadlocke squadlocke : games) {
+            if(!squadlocke.storesParticipantsSeparately()) continue;
+
+            // Skips records of joins that are still in progress or were abandoned
+            Set<SquadlockeParticipant> participants = participantsByGame.get(squadlocke.getId());
+            participants.removeIf(participant -> !squadlocke.isParticipant(participant.getId()));
+            squadlocke.setParticipants(participants);
+        }
+    }
+
+    @Override
+    public SquadlockeParticipant getParticipant(Squadlocke squadlocke, String participantId) {
+        if(!squadlocke.storesParticipantsSeparately()) return squadlocke.getParticipantById(participantId);
+
+        Optional<SquadlockeParticipant> participant = Optional.empty();
+        if(squadlocke.isParticipant(participantId)) {
+            participant = squadlocke.findParticipantById(participantId)
+                    .or(() -> this.participantRepository.findById(SquadlockeParticipantRecord.idOf(squadlocke.getId(), participantId))
+                            .map(SquadlockeRepositoryCustomImpl::participantOf));
+        }
+
+        return participant.orElseThrow(() -> new GameResourceNotFoundException("Player with id: " + participantId +
+                " is not a participant in this game (id: " + squadlocke.getId() + ")"));
+    }
+
+    @Override
+    public boolean allPlayersReady(Squadlocke squadlocke) {
+        if(!squadlocke.storesParticipantsSeparately()) return squadlocke.allPlayersReady();
+
+        // Players ready up in their own records without changing the game, so
+        // count what is stored now rather than what was read with the game
+        return this.participantRepository.countByPlayerState(squadlocke.getId(), PlayerState.READY) == squadlocke.getParticipantIds().size();
+    }
+
+    @Override
+    public boolean addParticipant(Squadlocke squadlocke, SquadlockeParticipant participant) {
+        if(squadlocke.storesParticipantsSeparately()) {
+            Criteria criteria = Criteria.where("gameState.gameStateType").is(GameStateType.REGISTRATION)
+                    .and("participantIds").ne(participant.getId());
+
+            this.insertJoiningRecord(squadlocke.getId(), participant);
+
+            boolean added = false;
+            try {
+                added = this.update(squadlocke, criteria, new Update().addToSet("participantIds", participant.getId()));
+            } finally {
+                if(!added) this.participantRepository.deleteById(SquadlockeParticipantRecord.idOf(squadlocke.getId(), participant.getId()));
+            }
+
+            return added;
+        }
+
+        Criteria criteria = Criteria.where("gameState.gameStateType").is(GameStateType.REGISTRATION)
+                .and("participants._id").ne(participant.getId());
+
+        boolean added = this.update(squadlocke, criteria, new Update().push("participants", participant));
+        if(added) participant.getBox().markSaved();
+        return added;
+    }
+
+    @Override
+    public boolean setPlayerState(Squadlocke squadlocke, SquadlockeParticipant participant, PlayerState playerState) {
+        Update update = new Update().set(participantPath(squadlocke) + ".playerState", playerState);
+
+        return this.updateParticipant(squadlocke, participant, update);
+    }
+
+    @Override
+    public boolean saveEncounters(Squadlocke squadlocke, Collection<SquadlockeParticipant> participants) {
+        if(squadlocke.storesParticipantsSeparately()) {
+            for(SquadlockeParticipant participant : participants) {
+                Update update = new Update();
+                setEncounters(update, RECORD_PARTICIPANT, participant);
+
+                if(!this.updateRecord(squadlocke.getId(), participant, update)) return false;
+                participant.getBox().markSaved();
+            }
+
+            return true;
+        }
+
+        Update update = new Update();
+        int i = 0;
+
+        for(SquadlockeParticipant participant : participants) {
+            String identifier = "participant" + i++;
+
+            update.filterArray(Criteria.where(identifier + "._id").is(participant.getId()));
+            setEncounters(update, "participants.$[" + identifier + "]", participant);
+        }
+
+        boolean saved = this.update(squadlocke, null, update);
+        if(saved) participants.forEach(participant -> participant.getBox().markSaved());
+        return saved;
+    }
+
+    @Override
+    public boolean saveCaughtEncounter(Squadlocke squadlocke, SquadlockeParticipant participant, SquadlockePokemon pokemon) {
+        String item = participantPath(squadlocke) + ".box.contents.$[item]";
+        Update update = new Update()
+                .set(item + ".isPlaceholder", false)
+                .set(item + ".caught", true)
+                .set(item + ".pokemon", pokemon)
+                .filterArray(Criteria.where("item.pokemon.locationId").is(pokemon.getLocationId()));
+
+        return this.updateParticipant(squadlocke, participant, update);
+    }
+
+    @Override
+    public boolean setGameState(Squadlocke squadlocke, GameState gameState) {
+        return this.update(squadlocke, null, new Update().set("gameState", gameState));
+    }
+
+    @Override
+    public boolean setEncounterModel(Squadlocke squadlocke, SquadlockeParticipant participant, String locationId, Pokemon model) {
+        Update update = new Update()
+                .set(participantPath(squadlocke) + ".box.contents.$[item].pokemon.model", model)
+                .filterArray(Criteria.where("item.pokemon.locationId").is(locationId));
+
+        return this.updateParticipant(squadlocke, participant, update);
+    }
+
+    /**
+     * Adds the encounters and roll count to write for a participant at a path.
+     */
+    private static void setEncounters(Update update, String path, SquadlockeParticipant participant) {
+        Box box = participant.getBox();
+
+        update.set(path + ".rollCount", participant.getRollCount());
+
+        if(box.needsRewrite()) {
+            update.set(path + ".box.contents", box.items());
+        } else if(!box.unsavedItems().isEmpty()) {
+            update.push(path + ".box.contents").each(box.unsavedItems().toArray());
+        }
+    }
+
+    /**
+     * Path to a participant within the document their updates are made to.
+     */
+    private static String participantPath(Squadlocke squadlocke) {
+        return squadlocke.storesParticipantsSeparately() ? RECORD_PARTICIPANT : PARTICIPANT;
+    }
+
+    private boolean updateParticipant(Squadlocke squadlocke, SquadlockeParticipant participant, Update update) {
+        if(squadlocke.storesParticipantsSeparately()) return this.updateRecord(squadlocke.getId(), participant, update);
+
+        update.filterArray(Criteria.where("participant._id").is(participant.getId()));
+        return this.update(squadlocke, null, update);
+    }
+
+    /**
+     * Writes the record of a player joining a game. A record already there
+     * belongs to a join that is either still in progress, so this one has
+     * lost the race, or was abandoned part way, in which case it is cleared
+     * for the retry.
+     *
+     * @throws OptimisticLockingFailureException If the player already has a record in the game
+     */
+    private void insertJoiningRecord(String gameId, SquadlockeParticipant participant) {
+        try {
+            this.insertRecord(gameId, participant);
+        } catch(DuplicateKeyException e) {
+            this.removeAbandonedRecord(gameId, participant.getId());
+            throw new OptimisticLockingFailureException("Player " + participant.getId() + " is already joining game " + gameId);
+        }
+    }
+
+    /**
+     * Removes a player's record if the game does not list them and it is too
+     * old to belong to a join that is still in progress.
+     */
+    private void removeAbandonedRecord(String gameId, String participantId) {
+        Query listed = new Query(Criteria.where("_id").is(gameId).and("participantIds").is(participantId));
+        if(this.mongoTemplate.exists(listed, Squadlocke.class)) return;
+
+        Date abandonedBefore = new Date(System.currentTimeMillis() - ABANDONED_JOIN_AGE.toMillis());
+        Query abandoned = new Query(Criteria.where("_id").is(SquadlockeParticipantRecord.idOf(gameId, participantId))
+                .and("createdAt").lt(abandonedBefore));
+        this.mongoTemplate.remove(abandoned, SquadlockeParticipantRecord.class);
+    }
+
+    private void insertRecord(String gameId, SquadlockeParticipant participant) {
+        SquadlockeParticipantRecord record = this.mongoTemplate.insert(new SquadlockeParticipantRecord(gameId, participant));
+
+        participant.setRecordVersion(record.getVersion());
+        participant.getBox().markSaved();
+    }
+
+    private static SquadlockeParticipant participantOf(SquadlockeParticipantRecord record) {
+        SquadlockeParticipant participant = record.getParticipant();
+        participant.setRecordVersion(record.getVersion());
+        return participant;
+    }
+
+    private boolean update(Squadlocke squadlocke, Criteria preconditions, Update update) {
+        Long version = squadlocke.getVersion();
+
+        if(!this.update(Squadlocke.class, squadlocke.getId(), version, preconditions, update, "Game " + squadlocke.getId())) return false;
+
+        squadlocke.setVersion(version == null ? 1 : version + 1);
+        return true;
+    }
+
+    private boolean updateRecord(String gameId, SquadlockeParticipant participant, Update update) {
+        Long version = participant.getRecordVersion();
+        String id = SquadlockeParticipantRecord.idOf(gameId, participant.getId());
+
+        if(!this.update(SquadlockeParticipantRecord.class, id, version, null, update,
+                "Player " + participant.getId() + " in game " + gameId)) return false;
+
+        participant.setRecordVersion(version == null ? 1 : version + 1);
+        return true;
+    }
+
+    /**
+     * Applies an update to the version of a document that was read. Games
+     * written before versioning have no version field, which a null version
+     * matches and the increment then creates.
+     *
+     * @throws OptimisticLockingFailureException If the document has been changed since it was read
+     */
+    private boolean update(Class<?> entity, String id, Long version, Criteria preconditions, Update update, String description) {
+        Criteria criteria = Criteria.where("_id").is(id).and(VERSION).is(version);
+        if(preconditions != null) criteria.andOperator(preconditions);
+
+        update.inc(VERSION, 1);
+
+        if(this.mongoTemplate.updateFirst(new Query(criteria), update, entity).getMatchedCount() > 0) return true;
+
+        Query changed = new Query(Criteria.where("_id").is(id).and(VERSION).ne(version));
+        if(this.mongoTemplate.exists(changed, entity)) {
+            throw new OptimisticLockingFailureException(description + " was changed by another request");
+        }
+
+        return false;
+    }
+}
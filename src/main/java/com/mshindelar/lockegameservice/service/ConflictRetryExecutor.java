@@ -0,0 +1,118 @@
+package com.mshindelar.lockegameservice.service;
+
+import com.mshindelar.lockegameservice.pokeapi.ContinuationExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Reruns a read-modify-write when it loses an optimistic concurrency race.
+ *
+ * The whole mutation is retried, so it has to re-read whatever it changes.
+ * Retries back off exponentially with full jitter, which spreads out
+ * requests that collided so they do not collide again in lockstep. After
+ * the last attempt the conflict is passed on to the caller.
+ */
+public class ConflictRetryExecutor {
+    private static Logger logger = LoggerFactory.getLogger(ConflictRetryExecutor.class);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final MeterRegistry meterRegistry;
+    private final ContinuationExecutor continuationExecutor;
+
+    public ConflictRetryExecutor(int maxAttempts, Duration initialBackoff, Duration maxBackoff, MeterRegistry meterRegistry,
+                                 ContinuationExecutor continuationExecutor) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.meterRegistry = meterRegistry;
+        this.continuationExecutor = continuationExecutor;
+    }
+
+    public <T> T execute(String operation, Supplier<T> mutation) {
+        for(int attempt = 1; ; attempt++) {
+            this.record(operation, "attempts");
+
+            try {
+                return mutation.get();
+            } catch(OptimisticLockingFailureException e) {
+                this.onConflict(operation, attempt, e);
+                this.sleep(this.backoff(attempt));
+            }
+        }
+    }
+
+    public <T> CompletableFuture<T> executeAsync(String operation, Supplier<CompletableFuture<T>> mutation) {
+        return this.executeAsync(operation, mutation, 1);
+    }
+
+    private <T> CompletableFuture<T> executeAsync(String operation, Supplier<CompletableFuture<T>> mutation, int attempt) {
+        this.record(operation, "attempts");
+
+        CompletableFuture<T> result;
+        try {
+            result = mutation.get();
+        } catch(RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        return result.handle((value, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if(!(cause instanceof OptimisticLockingFailureException)) {
+                return error == null ? CompletableFuture.completedFuture(value) : CompletableFuture.<T>failedFuture(cause);
+            }
+
+            this.onConflict(operation, attempt, (OptimisticLockingFailureException) cause);
+            // The retry rereads the game, so it runs on the continuation pool, never in
+            // place on whichever thread failed the last attempt. The delay only hands it
+            // over; a pool passed straight to delayedExecutor would drop a rejection on
+            // the timer thread and leave the request hanging.
+            Executor delayed = CompletableFuture.delayedExecutor(this.backoff(attempt), TimeUnit.MILLISECONDS, Runnable::run);
+            CompletableFuture<Void> delay = CompletableFuture.runAsync(() -> {}, delayed);
+            return this.continuationExecutor.thenApply(delay, ignored -> this.executeAsync(operation, mutation, attempt + 1))
+                    .thenCompose(next -> next);
+        }).thenCompose(next -> next);
+    }
+
+    private void onConflict(String operation, int attempt, OptimisticLockingFailureException e) {
+        this.record(operation, "conflicts");
+
+        if(attempt >= this.maxAttempts) {
+            this.record(operation, "exhausted");
+            logger.warn(operation + " gave up after " + attempt + " conflicting attempts");
+            throw e;
+        }
+    }
+
+    /**
+     * Full jitter: a random wait up to an exponentially growing cap.
+     */
+    private long backoff(int attempt) {
+        long cap = Math.min(this.maxBackoffMillis, this.initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private void record(String operation, String outcome) {
+        this.meterRegistry.counter("squadlocke.writes", "operation", operation, "outcome", outcome).increment();
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -4,11 +4,12 @@ import com.mshindelar.lockegameservice.entity.EncounterGenerator.*;
 import com.mshindelar.lockegameservice.entity.generic.GameGeneration;
 import com.mshindelar.lockegameservice.entity.squadlocke.SquadlockeParticipant;
 import com.mshindelar.lockegameservice.repository.EncounterRepository;
+import org.apache.commons.rng.UniformRandomProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 public class EncounterGenerationService {
@@ -16,21 +17,30 @@ public class EncounterGenerationService {
     @Autowired
     private EncounterRepository encounterRepository;
 
+    @Autowired
+    private EncounterIndex encounterIndex;
+
+    @Autowired
+    private LocationCatalog locationCatalog;
+
     @Autowired
     private EncounterGeneratorFactory encounterGeneratorFactory;
 
-    public Encounter getEncounter(SquadlockeParticipant participant, String generationId, String locationId, List<EncounterMode> modes,
+    /**
+     * Rolls an encounter for a participant using the stream for the given roll
+     * number, so the same roll always produces the same encounter.
+     */
+    public Encounter getEncounter(SquadlockeParticipant participant, long roll, String generationId, String locationId, List<EncounterMode> modes,
                                   EncounterGeneratorSettings settings, boolean filterSpeciesClause) {
-        List<Encounter> encounters = this.encounterRepository.findEncountersForLocationByMode(generationId, participant.getGameId(), locationId, modes);
+        UniformRandomProvider rng = participant.getRollStream(roll);
+        EncounterTable table = this.encounterIndex.getEncounterTable(generationId, participant.getGameId(), locationId, modes);
+        EncounterGenerator encounterGenerator = this.encounterGeneratorFactory.getEncounterGenerator(settings.getEncounterProbability());
 
         if(filterSpeciesClause) {
-            encounters = encounters.stream()
-                    .filter(e -> !participant.getBox().containsSpecies(e.getNationalDexNumber()))
-                    .collect(Collectors.toList());
+            return encounterGenerator.getEncounter(table, nationalDexNumber -> !participant.getBox().containsSpecies(nationalDexNumber), rng);
         }
 
-        EncounterGenerator encounterGenerator = this.encounterGeneratorFactory.getEncounterGenerator(settings.getEncounterProbability());
-        return encounterGenerator.getEncounter(encounters);
+        return encounterGenerator.getEncounter(table, rng);
     }
 
     public List<Encounter> getAllEncountersForLocation(String generationId, String locationId, int gameId) {
@@ -38,9 +48,10 @@ public class EncounterGenerationService {
     }
 
     public List<EncounterMode> getAllEncounterModesForLocation(String generationId, String locationId) {
-        return this.encounterRepository.findAll().stream()
-                .map(Encounter::getMode)
-                .distinct()
-                .collect(Collectors.toList());
+        return this.locationCatalog.getModes(generationId, locationId);
+    }
+
+    public Map<String, Map<EncounterMode, Integer>> getLocationCatalog(String generationId) {
+        return this.locationCatalog.getLocations(generationId);
     }
 }
@@ -0,0 +1,95 @@
+package com.mshindelar.lockegameservice.service;
+
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.*;
+import com.mshindelar.lockegameservice.entity.generic.GameGeneration;
+import com.mshindelar.lockegameservice.exception.GameResourceNotFoundException;
+import com.mshindelar.lockegameservice.exception.InvalidSimulationRequestException;
+import com.mshindelar.lockegameservice.repository.GameGenerationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Estimates how encounter settings play out over a whole run by simulating
+ * it many times over.
+ */
+@Service
+@Slf4j
+public class EncounterSimulationService {
+
+    @Autowired
+    private EncounterIndex encounterIndex;
+
+    @Autowired
+    private EncounterGeneratorFactory encounterGeneratorFactory;
+
+    @Autowired
+    private GameGenerationRepository gameGenerationRepository;
+
+    @Autowired
+    @Qualifier("encounterSimulationPool")
+    private ForkJoinPool encounterSimulationPool;
+
+    @Autowired
+    private LockeGameServiceConfiguration gameServiceConfiguration;
+
+    private static Logger logger = LoggerFactory.getLogger(EncounterSimulationService.class);
+
+    /**
+     * Simulates runs through the given routes, in order, catching one
+     * encounter per route, once for every encounter probability mode.
+     *
+     * Species clause and dupe results depend on the order routes are played
+     * in, and the catalog only knows them by id, so the caller has to give
+     * the order.
+     *
+     * @param locationIds Routes to run through, in the order they are played
+     * @param seed Seed for the simulation, a random one is used if null
+     * @throws InvalidSimulationRequestException If no routes are given
+     */
+    public List<EncounterSimulationResult> simulate(int generationId, int gameId, List<String> locationIds, List<EncounterMode> modes,
+                                                    boolean speciesClause, long runs, Long seed) {
+        GameGeneration gameGeneration = this.gameGenerationRepository.findByGenerationId(generationId).orElseThrow(() ->
+                new GameResourceNotFoundException("Generation with id " + generationId + " cannot be found."));
+
+        if(locationIds == null || locationIds.isEmpty()) {
+            throw new InvalidSimulationRequestException("Simulations need the routes to run through, in the order they are played");
+        }
+
+        String generation = "" + gameGeneration.getGenerationId();
+
+        List<EncounterTable> tables = new ArrayList<>(locationIds.size());
+        for(String locationId : locationIds) {
+            tables.add(this.encounterIndex.getEncounterTable(generation, gameId, locationId, modes));
+        }
+
+        long maxRuns = this.gameServiceConfiguration.getEncounters().getMaximumSimulationRuns();
+        long boundedRuns = Math.max(1, Math.min(runs, maxRuns));
+        long simulationSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+
+        List<EncounterSimulationResult> results = new ArrayList<>();
+        for(EncounterProbability encounterProbability : EncounterProbability.values()) {
+            long start = System.currentTimeMillis();
+
+            EncounterSimulation simulation = new EncounterSimulation(tables,
+                    this.encounterGeneratorFactory.getEncounterGenerator(encounterProbability), speciesClause, simulationSeed, boundedRuns);
+            EncounterSimulation.Histogram histogram = this.encounterSimulationPool.invoke(simulation);
+
+            long elapsed = System.currentTimeMillis() - start;
+            results.add(new EncounterSimulationResult(encounterProbability, speciesClause, tables.size(), simulation.getSpecies(), histogram, elapsed));
+            logger.info("Simulated " + boundedRuns + " runs over " + tables.size() + " routes with " + encounterProbability
+                    + " encounters in " + elapsed + "ms");
+        }
+
+        return results;
+    }
+}
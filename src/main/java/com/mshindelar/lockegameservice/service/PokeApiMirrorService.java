@@ -0,0 +1,197 @@
+package com.mshindelar.lockegameservice.service;
+
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.Encounter;
+import com.mshindelar.lockegameservice.entity.generic.GameGeneration;
+import com.mshindelar.lockegameservice.exception.DuplicateGameResourceException;
+import com.mshindelar.lockegameservice.exception.GameResourceNotFoundException;
+import com.mshindelar.lockegameservice.pokeapi.EvolutionIndex;
+import com.mshindelar.lockegameservice.pokeapi.PokeApiCache;
+import com.mshindelar.lockegameservice.pokeapi.PokeApiClient;
+import com.mshindelar.lockegameservice.pokeapi.PokeApiMirrorJob;
+import com.mshindelar.lockegameservice.pokeapi.SpeciesSnapshot;
+import com.mshindelar.lockegameservice.pokeapi.SpeciesSnapshotInfo;
+import com.mshindelar.lockegameservice.pokeapi.SpeciesSnapshotWriter;
+import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChain;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import com.mshindelar.lockegameservice.pokeapi.model.PokemonSpecies;
+import com.mshindelar.lockegameservice.repository.EvolutionChainRepository;
+import com.mshindelar.lockegameservice.repository.GameGenerationRepository;
+import com.mshindelar.lockegameservice.repository.PokemonSpeciesRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class PokeApiMirrorService {
+
+    @Autowired
+    private PokeApiClient pokeApiClient;
+
+    @Autowired
+    private PokeApiCache pokeApiCache;
+
+    @Autowired
+    private EvolutionIndex evolutionIndex;
+
+    @Autowired
+    private SpeciesSnapshot speciesSnapshot;
+
+    @Autowired
+    private PokemonSpeciesRepository pokemonSpeciesRepository;
+
+    @Autowired
+    private EvolutionChainRepository evolutionChainRepository;
+
+    @Autowired
+    private GameGenerationRepository gameGenerationRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private LockeGameServiceConfiguration gameServiceConfiguration;
+
+    private static Logger logger = LoggerFactory.getLogger(PokeApiMirrorService.class);
+
+    private final Map<Integer, PokeApiMirrorJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Starts copying every species used by a generation, along with their
+     * evolution chains, from PokeAPI into the local mirror.
+     *
+     * @throws DuplicateGameResourceException If a mirror job for the generation is already running
+     */
+    public PokeApiMirrorJob startMirror(int generationId) {
+        GameGeneration gameGeneration = this.gameGenerationRepository.findByGenerationId(generationId).orElseThrow(() ->
+                new GameResourceNotFoundException("Generation with id " + generationId + " cannot be found."));
+
+        PokeApiMirrorJob job = new PokeApiMirrorJob(generationId);
+        PokeApiMirrorJob current = this.jobs.compute(generationId, (id, existing) ->
+                existing != null && existing.isRunning() ? existing : job);
+
+        if(current != job) {
+            throw new DuplicateGameResourceException("A mirror job for generation " + generationId + " is already running.");
+        }
+
+        this.taskScheduler.schedule(() -> this.mirror(gameGeneration, job), new Date());
+        return job;
+    }
+
+    public PokeApiMirrorJob getMirrorJob(int generationId) {
+        PokeApiMirrorJob job = this.jobs.get(generationId);
+
+        if(job == null) {
+            throw new GameResourceNotFoundException("No mirror job has been run for generation " + generationId);
+        }
+
+        return job;
+    }
+
+    /**
+     * Compiles every mirrored species and its evolutions into the snapshot
+     * file and remaps it. Mirror the generations first so the snapshot covers them.
+     */
+    public SpeciesSnapshotInfo writeSnapshot() {
+        if(this.speciesSnapshot.getPath() == null) {
+            throw new IllegalStateException("No species snapshot path is configured.");
+        }
+
+        this.evolutionIndex.rebuild();
+
+        try {
+            int written = SpeciesSnapshotWriter.write(this.speciesSnapshot.getPath(),
+                    this.pokemonSpeciesRepository.findAll(), this.evolutionIndex::lookup);
+            logger.info("Wrote " + written + " species to snapshot " + this.speciesSnapshot.getPath());
+        } catch(IOException e) {
+            throw new UncheckedIOException("Could not write species snapshot", e);
+        }
+
+        this.speciesSnapshot.load();
+        return new SpeciesSnapshotInfo(this.speciesSnapshot);
+    }
+
+    public SpeciesSnapshotInfo getSnapshot() { return new SpeciesSnapshotInfo(this.speciesSnapshot); }
+
+    private void mirror(GameGeneration gameGeneration, PokeApiMirrorJob job) {
+        logger.info("Mirroring PokeAPI species for generation " + gameGeneration.getGenerationId());
+        int batchSize = this.gameServiceConfiguration.getPokeapi().getMirror().getBatchSize();
+
+        try {
+            Set<Integer> nationalDexNumbers = this.getSpeciesForGeneration(gameGeneration);
+            job.setTotalSpecies(nationalDexNumbers.size());
+
+            Set<Integer> mirroredChains = new HashSet<>();
+            List<Pokemon> batch = new ArrayList<>(batchSize);
+
+            for(int nationalDexNumber : nationalDexNumbers) {
+                try {
+                    Pokemon pokemon = this.pokeApiClient.fetchPokemon(nationalDexNumber);
+                    PokemonSpecies species = this.pokeApiClient.fetchPokemonSpecies(nationalDexNumber);
+                    pokemon.setEvolutionChainId(species.getEvolutionChainId());
+
+                    if(species.getEvolutionChainId() > 0 && mirroredChains.add(species.getEvolutionChainId())) {
+                        EvolutionChain chain = this.pokeApiClient.fetchEvolutionChain(species.getEvolutionChainId());
+                        this.evolutionChainRepository.save(chain);
+                        this.evolutionIndex.index(chain);
+                        job.getMirroredEvolutionChains().incrementAndGet();
+                    }
+
+                    batch.add(pokemon);
+                } catch(RuntimeException e) {
+                    // e.g. an upstream error or a partial body, one bad species should not end the job
+                    logger.warn("Could not mirror species " + nationalDexNumber + ": " + e, e);
+                    job.getFailedSpecies().add(nationalDexNumber);
+                }
+
+                if(batch.size() >= batchSize) this.flush(batch, job);
+            }
+
+            this.flush(batch, job);
+            job.complete(PokeApiMirrorJob.State.COMPLETED);
+            logger.info("Mirrored " + job.getMirroredSpecies().get() + " species for generation " + gameGeneration.getGenerationId());
+        } catch(RuntimeException e) {
+            logger.error("Mirror job for generation " + gameGeneration.getGenerationId() + " failed: " + e.getMessage(), e);
+            job.complete(PokeApiMirrorJob.State.FAILED);
+        }
+    }
+
+    private void flush(List<Pokemon> batch, PokeApiMirrorJob job) {
+        if(batch.isEmpty()) return;
+
+        this.pokemonSpeciesRepository.saveAll(batch);
+        batch.forEach(this.pokeApiCache::put);
+        job.getMirroredSpecies().addAndGet(batch.size());
+        batch.clear();
+    }
+
+    /**
+     * Every species that can be encountered in the generation, plus its starters.
+     */
+    private Set<Integer> getSpeciesForGeneration(GameGeneration gameGeneration) {
+        Query query = Query.query(Criteria.where("generationId").is("" + gameGeneration.getGenerationId()));
+        Set<Integer> nationalDexNumbers = new TreeSet<>(
+                this.mongoTemplate.findDistinct(query, "nationalDexNumber", Encounter.class, Integer.class));
+
+        if(gameGeneration.getStarterIds() != null) {
+            nationalDexNumbers.addAll(gameGeneration.getStarterIds());
+        }
+
+        return nationalDexNumbers;
+    }
+}
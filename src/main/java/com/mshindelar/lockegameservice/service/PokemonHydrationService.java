@@ -0,0 +1,64 @@
+package com.mshindelar.lockegameservice.service;
+
+import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.Encounter;
+import com.mshindelar.lockegameservice.pokeapi.AsyncPokeApiClient;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Attaches pokemon models to encounters, fetching each distinct species in
+ * parallel without holding a thread while they load.
+ */
+@Service
+@Slf4j
+public class PokemonHydrationService {
+
+    @Autowired
+    private AsyncPokeApiClient asyncPokeApiClient;
+
+    @Autowired
+    private LockeGameServiceConfiguration gameServiceConfiguration;
+
+    private static Logger logger = LoggerFactory.getLogger(PokemonHydrationService.class);
+
+    /**
+     * Sets the model on every encounter whose species could be fetched before
+     * the hydration deadline. The deadline is applied to each lookup, and
+     * encounters whose species did not arrive in time, or failed to load, are
+     * returned without a model.
+     */
+    public CompletableFuture<List<Encounter>> hydrateAsync(List<Encounter> encounters) {
+        long deadlineMillis = this.gameServiceConfiguration.getPokeapi().getHydration().getDeadline().toMillis();
+        Map<Integer, CompletableFuture<Pokemon>> lookups = new HashMap<>();
+
+        for(Encounter encounter : encounters) {
+            lookups.computeIfAbsent(encounter.getNationalDexNumber(), nationalDexNumber ->
+                    this.asyncPokeApiClient.getPokemon(nationalDexNumber)
+                            .completeOnTimeout(null, deadlineMillis, TimeUnit.MILLISECONDS)
+                            .exceptionally(e -> {
+                                logger.warn("Could not hydrate species " + nationalDexNumber + ": " + e.getMessage());
+                                return null;
+                            }));
+        }
+
+        return CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    for(Encounter encounter : encounters) {
+                        Pokemon pokemon = lookups.get(encounter.getNationalDexNumber()).join();
+                        if(pokemon != null) encounter.setModel(pokemon);
+                    }
+                    return encounters;
+                });
+    }
+}
@@ -2,6 +2,7 @@ package com.mshindelar.lockegameservice.service;
 
 import com.mshindelar.lockegameservice.configuration.LockeGameServiceConfiguration;
 import com.mshindelar.lockegameservice.controller.SquadlockeController;
+import com.mshindelar.lockegameservice.dto.EncounterRollRequest;
 import com.mshindelar.lockegameservice.entity.EncounterGenerator.Encounter;
 import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterMode;
 import com.mshindelar.lockegameservice.entity.generic.GameGeneration;
@@ -13,9 +14,10 @@ import com.mshindelar.lockegameservice.entity.squadlocke.state.RegistrationGameS
 import com.mshindelar.lockegameservice.exception.DuplicateGameResourceException;
 import com.mshindelar.lockegameservice.exception.GameResourceNotFoundException;
 import com.mshindelar.lockegameservice.exception.ImproperGameStateException;
+import com.mshindelar.lockegameservice.pokeapi.AsyncPokeApiClient;
+import com.mshindelar.lockegameservice.pokeapi.ContinuationExecutor;
+import com.mshindelar.lockegameservice.pokeapi.EvolutionIndex;
 import com.mshindelar.lockegameservice.pokeapi.PokeApiClient;
-import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChain;
-import com.mshindelar.lockegameservice.pokeapi.model.EvolutionChainItem;
 import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
 import com.mshindelar.lockegameservice.repository.GameGenerationRepository;
 import com.mshindelar.lockegameservice.repository.SquadlockeRepository;
@@ -23,9 +25,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @Slf4j
@@ -43,14 +49,28 @@ public class SquadlockeService {
     @Autowired
     private PokeApiClient pokeApiClient;
 
+    @Autowired
+    private AsyncPokeApiClient asyncPokeApiClient;
+
+    // Runs the blocking work after a non-blocking species fetch, off the event loop
+    @Autowired
+    private ContinuationExecutor continuationExecutor;
+
+    @Autowired
+    private EvolutionIndex evolutionIndex;
+
     @Autowired
     private LockeGameServiceConfiguration gameServiceConfiguration;
 
+    @Autowired
+    private ConflictRetryExecutor conflictRetryExecutor;
+
     private static Logger logger = LoggerFactory.getLogger(SquadlockeController.class);
 
     public Squadlocke createSquadlocke(String participantId, SquadlockeSettings squadlockeSettings) {
         logger.info("Starting squadlocke game creation for " + participantId);
         SquadlockeParticipant creator = new SquadlockeParticipant(participantId);
+        creator.setSeed(ThreadLocalRandom.current().nextLong());
 
         Set<SquadlockeParticipant> participants = new HashSet<>();
         participants.add(creator);
@@ -67,13 +87,24 @@ public class SquadlockeService {
 
         squadlocke.setGameState(new RegistrationGameState());
         squadlocke.setCreatedAt(new Date());
-        squadlocke = squadlockeRepository.save(squadlocke);
+        squadlocke.setParticipantStorage(this.gameServiceConfiguration.getSquadlocke().getParticipantStorage());
+        squadlocke = squadlockeRepository.createGame(squadlocke);
 
         logger.info("Squadlocke " + squadlocke.getId() + " created.");
         return squadlocke;
     }
 
     public Squadlocke getSquadlocke(String gameId) {
+        Squadlocke squadlocke = this.getGame(gameId);
+        this.squadlockeRepository.loadParticipants(Collections.singletonList(squadlocke));
+        return squadlocke;
+    }
+
+    /**
+     * Reads a game without its participants if they are stored separately,
+     * for when only some of them are needed.
+     */
+    private Squadlocke getGame(String gameId) {
         return squadlockeRepository.findById(gameId).orElseThrow(() -> {
             logger.error("No game with id: " + gameId);
            return new GameResourceNotFoundException("Game with id " + gameId + " cannot be found.");
@@ -81,14 +112,30 @@ public class SquadlockeService {
     }
 
     public Squadlocke joinSquadlocke(String gameId, String participantId, String versionId, int starterId) {
+        return this.conflictRetryExecutor.execute("join", () -> {
+            Squadlocke squadlocke = this.getJoinableSquadlocke(gameId, participantId);
+            return this.registerParticipant(squadlocke, participantId, versionId, this.pokeApiClient.getPokemon(starterId));
+        });
+    }
+
+    /**
+     * Same as {@link #joinSquadlocke}, but the starter is fetched without holding the calling thread.
+     */
+    public CompletableFuture<Squadlocke> joinSquadlockeAsync(String gameId, String participantId, String versionId, int starterId) {
+        return this.conflictRetryExecutor.executeAsync("join", () -> {
+            Squadlocke squadlocke = this.getJoinableSquadlocke(gameId, participantId);
+            return this.continuationExecutor.thenApply(this.asyncPokeApiClient.getPokemon(starterId),
+                    starter -> this.registerParticipant(squadlocke, participantId, versionId, starter));
+        });
+    }
+
+    private Squadlocke getJoinableSquadlocke(String gameId, String participantId) {
         logger.info("Player " + participantId + " attempting to register for game " + gameId);
         Squadlocke squadlocke = this.getSquadlocke(gameId);
-        SquadlockeParticipant squadlockeParticipant;
 
-        try {
-            squadlocke.getParticipantById(participantId);
+        if(squadlocke.isParticipant(participantId)) {
             throw new DuplicateGameResourceException("User is already a participant.");
-        } catch(GameResourceNotFoundException ignored) { }
+        }
 
         //Players should only be able to join a game during the registration phase
         if(squadlocke.getGameState().getGameStateType() != GameStateType.REGISTRATION) {
@@ -100,7 +147,12 @@ public class SquadlockeService {
          * If the game is invite only, check if the registered player is in the invite list.
          */
 
-        squadlockeParticipant = new SquadlockeParticipant(participantId);
+        return squadlocke;
+    }
+
+    private Squadlocke registerParticipant(Squadlocke squadlocke, String participantId, String versionId, Pokemon starterModel) {
+        SquadlockeParticipant squadlockeParticipant = new SquadlockeParticipant(participantId);
+        squadlockeParticipant.setSeed(ThreadLocalRandom.current().nextLong());
 
         //TODO: Refactor gameId -> versionId and have it be of type String instead of int
         squadlockeParticipant.setGameId(Integer.parseInt(versionId));
@@ -109,19 +161,28 @@ public class SquadlockeService {
         starter.setAlive(true);
         starter.setEncounteredAt(new Date());
         starter.setLocationId("starter");
-        starter.setModel(this.pokeApiClient.getPokemon(starterId));
+        starter.setModel(starterModel);
 
         squadlockeParticipant.getBox().add(starter);
 
-        squadlocke.addParticipant(squadlockeParticipant);
+        if(!this.squadlockeRepository.addParticipant(squadlocke, squadlockeParticipant)) {
+            // The join is only refused if the game stopped being joinable after it was read,
+            // so read it again to report why. If it is joinable now, retry the join.
+            this.getJoinableSquadlocke(squadlocke.getId(), participantId);
+            throw new OptimisticLockingFailureException("Game " + squadlocke.getId() + " was changed by another request");
+        }
 
-        squadlockeRepository.save(squadlocke);
+        squadlocke.addParticipant(squadlockeParticipant);
         logger.info("Player " + participantId + " registered to game " + participantId);
 
         return squadlocke;
     }
 
     public Squadlocke startSquadlocke(String gameId) {
+        return this.conflictRetryExecutor.execute("start", () -> this.doStartSquadlocke(gameId));
+    }
+
+    private Squadlocke doStartSquadlocke(String gameId) {
         Squadlocke squadlocke = this.getSquadlocke(gameId);
 
         //A game that is not in the registration state cannot be started
@@ -132,7 +193,9 @@ public class SquadlockeService {
 
         squadlocke.setGameState(new CheckpointGameState(1));
 
-        squadlockeRepository.save(squadlocke);
+        if(!this.squadlockeRepository.setGameState(squadlocke, squadlocke.getGameState())) {
+            throw new GameResourceNotFoundException("Game with id " + gameId + " cannot be found.");
+        }
 
         logger.info("Started squadlocke " + gameId);
 
@@ -143,16 +206,18 @@ public class SquadlockeService {
         Squadlocke squadlocke = this.getSquadlocke(gameId);
 
         //squadlocke.setGameState(GameStateType.FINALIZED);
-        squadlockeRepository.save(squadlocke);
         return squadlocke;
     }
 
     public SquadlockeParticipant getParticipant(String gameId, String participantId) {
-        Squadlocke squadlocke = this.getSquadlocke(gameId);
-        return squadlocke.getParticipantById(participantId);
+        return this.squadlockeRepository.getParticipant(this.getGame(gameId), participantId);
     }
 
     public SquadlockeParticipant readyParticipant(String gameId, String participantId) {
+        return this.conflictRetryExecutor.execute("ready", () -> this.doReadyParticipant(gameId, participantId));
+    }
+
+    private SquadlockeParticipant doReadyParticipant(String gameId, String participantId) {
         Squadlocke squadlocke = this.getSquadlocke(gameId);
 
         if(squadlocke.getGameState().getGameStateType() != GameStateType.CHECKPOINT) {
@@ -160,10 +225,11 @@ public class SquadlockeService {
             throw new ImproperGameStateException("Players cannot ready up outside of the checkpoint gamestate.");
         }
 
-        SquadlockeParticipant participant = squadlocke.getParticipantById(participantId);
-        participant.readyUp();
+        SquadlockeParticipant participant = squadlocke.readyUp(participantId);
+        this.saveParticipantChange(this.squadlockeRepository.setPlayerState(squadlocke, participant, participant.getPlayerState()),
+                gameId, participantId, GameStateType.CHECKPOINT);
 
-        if(squadlocke.allPlayersReady()) {
+        if(this.squadlockeRepository.allPlayersReady(squadlocke)) {
             //TODO: Start tournament
             //TournamentSettings tournamentSettings = new TournamentSettings();
             //tournamentSettings.setName("LW-20 test tournament");
@@ -176,39 +242,163 @@ public class SquadlockeService {
             int a = 1;
         }
 
-        squadlockeRepository.save(squadlocke);
-
         return participant;
     }
 
     public List<Squadlocke> getSquadlockeByUserId(String userId) {
-        return this.squadlockeRepository.findByParticipantId(userId);
+        List<Squadlocke> games = this.squadlockeRepository.findByParticipantId(userId);
+        this.squadlockeRepository.loadParticipants(games);
+        return games;
     }
 
     public List<Squadlocke> getJoinableGames(String userId) {
-        return this.squadlockeRepository.findJoinableGames(userId);
+        List<Squadlocke> games = this.squadlockeRepository.findJoinableGames(userId);
+        this.squadlockeRepository.loadParticipants(games);
+        return games;
     }
 
     public Encounter getEncounter(String gameId, String participantId, String locationId, EncounterMode encounterMode,
                                   boolean filterSpeciesClause) {
-        Squadlocke squadlocke = this.getSquadlocke(gameId);
+        return this.conflictRetryExecutor.execute("encounter", () -> {
+            Squadlocke squadlocke = this.getGame(gameId);
+            SquadlockeParticipant participant = this.squadlockeRepository.getParticipant(squadlocke, participantId);
+
+            long roll = participant.nextRoll();
+            Encounter encounter = this.rollEncounter(squadlocke, participant, roll, locationId, encounterMode, filterSpeciesClause);
+
+            return this.recordEncounter(squadlocke, participant, roll, locationId, encounter,
+                    this.pokeApiClient.getPokemon(encounter.getNationalDexNumber()));
+        });
+    }
+
+    /**
+     * Same as {@link #getEncounter}, but the encountered species is fetched without holding the calling thread.
+     */
+    public CompletableFuture<Encounter> getEncounterAsync(String gameId, String participantId, String locationId, EncounterMode encounterMode,
+                                                          boolean filterSpeciesClause) {
+        return this.conflictRetryExecutor.executeAsync("encounter", () -> {
+            Squadlocke squadlocke = this.getGame(gameId);
+            SquadlockeParticipant participant = this.squadlockeRepository.getParticipant(squadlocke, participantId);
+
+            long roll = participant.nextRoll();
+            Encounter encounter = this.rollEncounter(squadlocke, participant, roll, locationId, encounterMode, filterSpeciesClause);
+
+            return this.continuationExecutor.thenApply(this.asyncPokeApiClient.getPokemon(encounter.getNationalDexNumber()),
+                    pokemonModel -> this.recordEncounter(squadlocke, participant, roll, locationId, encounter, pokemonModel));
+        });
+    }
+
+    /**
+     * Rolls encounters for several participants and locations at once. The
+     * game and each participant are read once, and each distinct species is
+     * fetched once. Rolls are made in request order, and if any of them
+     * cannot be rolled none of them are saved.
+     *
+     * Participants stored with the game are saved together, so either every
+     * roll is saved or none are. Separately stored participants are saved
+     * one at a time. If one of them loses a race, the participants saved
+     * before it keep their rolls and only the rest are rolled again. If the
+     * retries run out or a participant has gone, the rolls saved so far stay
+     * saved.
+     */
+    public CompletableFuture<List<Encounter>> getEncountersAsync(String gameId, List<EncounterRollRequest> requests) {
+        // Rolls saved by earlier attempts, by request index
+        Map<Integer, Encounter> saved = new ConcurrentHashMap<>();
+        return this.conflictRetryExecutor.executeAsync("encounters", () -> this.rollEncounters(gameId, requests, saved));
+    }
+
+    private CompletableFuture<List<Encounter>> rollEncounters(String gameId, List<EncounterRollRequest> requests, Map<Integer, Encounter> saved) {
+        Squadlocke squadlocke = this.getGame(gameId);
+        Map<String, SquadlockeParticipant> participantsById = new HashMap<>();
+
+        List<Integer> pending = new ArrayList<>(requests.size());
+        List<SquadlockeParticipant> participants = new ArrayList<>(requests.size());
+        List<Long> rolls = new ArrayList<>(requests.size());
+        List<Encounter> encounters = new ArrayList<>(requests.size());
+        Map<Integer, CompletableFuture<Pokemon>> models = new HashMap<>();
+
+        for(int i = 0; i < requests.size(); i++) {
+            if(saved.containsKey(i)) continue;
+
+            EncounterRollRequest request = requests.get(i);
+            // Each participant is read once, however many rolls they have
+            SquadlockeParticipant participant = participantsById.computeIfAbsent(request.getParticipantId(),
+                    participantId -> this.squadlockeRepository.getParticipant(squadlocke, participantId));
+            long roll = participant.nextRoll();
+            Encounter encounter = this.rollEncounter(squadlocke, participant, roll, request.getLocationId(), request.getEncounterMode(),
+                    request.isFilterSpeciesClause());
+
+            pending.add(i);
+            participants.add(participant);
+            rolls.add(roll);
+            encounters.add(encounter);
+            models.computeIfAbsent(encounter.getNationalDexNumber(), this.asyncPokeApiClient::getPokemon);
+        }
+
+        CompletableFuture<Void> fetched = CompletableFuture.allOf(models.values().toArray(new CompletableFuture<?>[0]));
+        return this.continuationExecutor.thenApply(fetched, ignored -> {
+            for(int i = 0; i < encounters.size(); i++) {
+                Encounter encounter = encounters.get(i);
+                this.addEncounterToBox(participants.get(i), rolls.get(i), requests.get(pending.get(i)).getLocationId(), encounter,
+                        models.get(encounter.getNationalDexNumber()).join());
+            }
+
+            this.saveRolledEncounters(squadlocke, pending, participants, encounters, saved);
+
+            List<Encounter> rolled = new ArrayList<>(requests.size());
+            for(int i = 0; i < requests.size(); i++) rolled.add(saved.get(i));
+            return rolled;
+        });
+    }
+
+    /**
+     * Saves a batch of rolls, recording each one in saved once it is written.
+     */
+    private void saveRolledEncounters(Squadlocke squadlocke, List<Integer> pending, List<SquadlockeParticipant> participants,
+                                      List<Encounter> encounters, Map<Integer, Encounter> saved) {
+        if(!squadlocke.storesParticipantsSeparately()) {
+            this.saveEncounters(squadlocke, participants);
+            for(int i = 0; i < pending.size(); i++) saved.put(pending.get(i), encounters.get(i));
+            return;
+        }
+
+        Map<SquadlockeParticipant, List<Integer>> rollsByParticipant = new LinkedHashMap<>();
+        for(int i = 0; i < pending.size(); i++) {
+            rollsByParticipant.computeIfAbsent(participants.get(i), participant -> new ArrayList<>()).add(i);
+        }
 
+        rollsByParticipant.forEach((participant, indexes) -> {
+            this.saveEncounters(squadlocke, Collections.singletonList(participant));
+            for(int i : indexes) saved.put(pending.get(i), encounters.get(i));
+        });
+    }
+
+    private Encounter rollEncounter(Squadlocke squadlocke, SquadlockeParticipant participant, long roll, String locationId, EncounterMode encounterMode,
+                                    boolean filterSpeciesClause) {
         if(squadlocke.getGameState().getGameStateType() != GameStateType.CHECKPOINT) {
             throw new ImproperGameStateException("Cannot get an encounter outside of the checkpoint gamestate.");
         }
 
-        SquadlockeParticipant participant = squadlocke.getParticipantById(participantId);
-
-        Encounter encounter = this.encounterGenerationService.getEncounter(participant, "" + squadlocke.getSettings().getGenerationId(),
+        return this.encounterGenerationService.getEncounter(participant, roll, "" + squadlocke.getSettings().getGenerationId(),
                 locationId, Collections.singletonList(encounterMode), squadlocke.getSettings().getEncounterGeneratorSettings(), filterSpeciesClause);
+    }
+
+    private Encounter recordEncounter(Squadlocke squadlocke, SquadlockeParticipant participant, long roll, String locationId, Encounter encounter,
+                                      Pokemon pokemonModel) {
+        this.addEncounterToBox(participant, roll, locationId, encounter, pokemonModel);
+
+        this.saveEncounters(squadlocke, Collections.singletonList(participant));
 
-        Pokemon pokemonModel = this.pokeApiClient.getPokemon(encounter.getNationalDexNumber());
+        return encounter;
+    }
 
+    private void addEncounterToBox(SquadlockeParticipant participant, long roll, String locationId, Encounter encounter, Pokemon pokemonModel) {
         SquadlockePokemon dummy = new SquadlockePokemon();
 
         dummy.setModel(pokemonModel);
         dummy.setLocationId(locationId);
         dummy.setEncounteredAt(new Date());
+        dummy.setEncounterRoll(roll);
         dummy.setAlive(false);
         dummy.setShiny(false);
         dummy.setAbility(null);
@@ -217,50 +407,143 @@ public class SquadlockeService {
 
         participant.getBox().add(dummy);
 
-        this.squadlockeRepository.save(squadlocke);
-
         encounter.setModel(pokemonModel);
-
-        return encounter;
     }
 
     public SquadlockePokemon updateEncounter(String gameId, String participantId, String locationId, String nickname, int abilityIndex, Nature nature,
                                              Gender gender, boolean isShiny) {
-        Squadlocke squadlocke = this.getSquadlocke(gameId);
+        return this.conflictRetryExecutor.execute("update-encounter",
+                () -> this.doUpdateEncounter(gameId, participantId, locationId, nickname, abilityIndex, nature, gender, isShiny));
+    }
 
-        SquadlockeParticipant participant = squadlocke.getParticipantById(participantId);
+    private SquadlockePokemon doUpdateEncounter(String gameId, String participantId, String locationId, String nickname, int abilityIndex,
+                                                Nature nature, Gender gender, boolean isShiny) {
+        Squadlocke squadlocke = this.getGame(gameId);
+
+        SquadlockeParticipant participant = this.squadlockeRepository.getParticipant(squadlocke, participantId);
 
         participant.getBox().updateEncounter(locationId, nickname, abilityIndex, nature, gender, isShiny);
+        SquadlockePokemon pokemon = participant.getBox().getEncounterForLocation(locationId);
 
-        this.squadlockeRepository.save(squadlocke);
+        if(pokemon != null) {
+            this.saveParticipantChange(this.squadlockeRepository.saveCaughtEncounter(squadlocke, participant, pokemon), gameId, participantId, null);
+        }
 
-        return participant.getBox().getEncounterForLocation(locationId);
+        return pokemon;
     }
 
-    public SquadlockePokemon evolveEncounter(String gameId, String participantId, String locationId) {
-        Squadlocke squadlocke = this.getSquadlocke(gameId);
+    public SquadlockePokemon evolveEncounter(String gameId, String participantId, String locationId, Integer evolutionId) {
+        return this.conflictRetryExecutor.execute("evolve", () -> this.doEvolveEncounter(gameId, participantId, locationId, evolutionId));
+    }
 
-        SquadlockeParticipant participant = squadlocke.getParticipantById(participantId);
+    private SquadlockePokemon doEvolveEncounter(String gameId, String participantId, String locationId, Integer evolutionId) {
+        Squadlocke squadlocke = this.getGame(gameId);
 
+        SquadlockeParticipant participant = this.squadlockeRepository.getParticipant(squadlocke, participantId);
         SquadlockePokemon pokemon = participant.getBox().getEncounterForLocation(locationId);
 
-        if(!pokemon.isAlive()) {
+        Integer nextEvolutionId = this.getNextEvolutionId(pokemon, evolutionId);
+
+        if(nextEvolutionId == null) {
             return null;
         }
 
-        EvolutionChain chain = this.pokeApiClient.getEvolutionChain(203);
+        return this.applyEvolution(squadlocke, participant, pokemon, this.pokeApiClient.getPokemon(nextEvolutionId));
+    }
+
+    /**
+     * Same as {@link #evolveEncounter}, but the evolved species is fetched without holding the calling thread.
+     */
+    public CompletableFuture<SquadlockePokemon> evolveEncounterAsync(String gameId, String participantId, String locationId, Integer evolutionId) {
+        return this.conflictRetryExecutor.executeAsync("evolve", () -> this.doEvolveEncounterAsync(gameId, participantId, locationId, evolutionId));
+    }
+
+    private CompletableFuture<SquadlockePokemon> doEvolveEncounterAsync(String gameId, String participantId, String locationId, Integer evolutionId) {
+        Squadlocke squadlocke = this.getGame(gameId);
 
-        List<EvolutionChainItem> evos = chain.getNextEvolution(pokemon.getModel());
+        SquadlockeParticipant participant = this.squadlockeRepository.getParticipant(squadlocke, participantId);
+        SquadlockePokemon pokemon = participant.getBox().getEncounterForLocation(locationId);
 
-        if(evos == null || evos.size() == 0) {
+        Integer nextEvolutionId = this.getNextEvolutionId(pokemon, evolutionId);
+
+        if(nextEvolutionId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return this.continuationExecutor.thenApply(this.asyncPokeApiClient.getPokemon(nextEvolutionId),
+                evolvedModel -> this.applyEvolution(squadlocke, participant, pokemon, evolvedModel));
+    }
+
+    /**
+     * Gets the species the pokemon should evolve into, or null if it cannot evolve.
+     */
+    private Integer getNextEvolutionId(SquadlockePokemon pokemon, Integer evolutionId) {
+        if(!pokemon.isAlive()) {
             return null;
         }
 
-        String evoName = evos.get(0).getName();
+        int[] evolutions = this.evolutionIndex.getNextEvolutions(pokemon.getModel());
+
+        if(evolutions.length == 0) {
+            return null;
+        }
+
+        // Branching evolutions default to the first branch unless one is requested
+        if(evolutionId == null) {
+            return evolutions[0];
+        }
+
+        if(Arrays.stream(evolutions).noneMatch(id -> id == evolutionId)) {
+            throw new ImproperGameStateException(pokemon.getModel().getName() + " cannot evolve into species " + evolutionId);
+        }
+
+        return evolutionId;
+    }
 
-        pokemon.setModel(this.pokeApiClient.getPokemon(evoName));
+    private SquadlockePokemon applyEvolution(Squadlocke squadlocke, SquadlockeParticipant participant, SquadlockePokemon pokemon, Pokemon evolvedModel) {
+        participant.getBox().evolve(pokemon, evolvedModel);
 
-        this.squadlockeRepository.save(squadlocke);
+        this.saveParticipantChange(this.squadlockeRepository.setEncounterModel(squadlocke, participant, pokemon.getLocationId(), evolvedModel),
+                squadlocke.getId(), participant.getId(), null);
         return pokemon;
     }
+
+    private void saveEncounters(Squadlocke squadlocke, Collection<SquadlockeParticipant> participants) {
+        if(!this.squadlockeRepository.saveEncounters(squadlocke, new LinkedHashSet<>(participants))) {
+            for(SquadlockeParticipant participant : participants) {
+                this.checkWritable(squadlocke.getId(), participant.getId(), GameStateType.CHECKPOINT);
+            }
+            throw new OptimisticLockingFailureException("Game " + squadlocke.getId() + " was changed by another request");
+        }
+    }
+
+    /**
+     * @param requiredState The state the game has to be in for the change, or null if any state will do
+     */
+    private void saveParticipantChange(boolean saved, String gameId, String participantId, GameStateType requiredState) {
+        if(!saved) {
+            this.checkWritable(gameId, participantId, requiredState);
+            throw new OptimisticLockingFailureException("Game " + gameId + " was changed by another request");
+        }
+    }
+
+    /**
+     * Reads a game again after a write to it matched nothing, to report which
+     * of the write's conditions no longer holds. Returns if they all hold now,
+     * in which case the game changed in between and the write can be retried.
+     *
+     * @throws GameResourceNotFoundException If the game is gone or the player is not in it
+     * @throws ImproperGameStateException If the game is no longer in the required state
+     */
+    private void checkWritable(String gameId, String participantId, GameStateType requiredState) {
+        Squadlocke squadlocke = this.getGame(gameId);
+
+        if(requiredState != null && squadlocke.getGameState().getGameStateType() != requiredState) {
+            throw new ImproperGameStateException("Game " + gameId + " is no longer in the " + requiredState + " gamestate.");
+        }
+
+        if(!squadlocke.isParticipant(participantId)) {
+            throw new GameResourceNotFoundException("Player with id: " + participantId + " is not a participant in this game (id: " + gameId + ")");
+        }
+    }
 }
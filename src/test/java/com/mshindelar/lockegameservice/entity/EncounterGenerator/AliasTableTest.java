@@ -0,0 +1,73 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AliasTableTest {
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void samplesInProportionToWeight() {
+        double[] weights = { 40, 20, 15, 10, 10, 4, 1 };
+
+        assertProportions(weights, counts(new AliasTable(weights), 42));
+    }
+
+    @Test
+    void zeroWeightsAreNeverSampled() {
+        double[] weights = { 0, 3, 0, 1, Double.NaN, -2 };
+        int[] counts = counts(new AliasTable(weights), 7);
+
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[2]);
+        assertEquals(0, counts[4]);
+        assertEquals(0, counts[5]);
+        assertProportions(new double[] { 0, 3, 0, 1, 0, 0 }, counts);
+    }
+
+    @Test
+    void allZeroWeightsAreSampledEvenly() {
+        assertProportions(new double[] { 1, 1, 1, 1 }, counts(new AliasTable(new double[] { 0, 0, 0, 0 }), 3));
+    }
+
+    @Test
+    void singleEntryIsAlwaysSampled() {
+        AliasTable table = new AliasTable(new double[] { 5 });
+        UniformRandomProvider rng = RandomSource.SPLIT_MIX_64.create(1L);
+
+        for(int i = 0; i < 1000; i++) assertEquals(0, table.sample(rng));
+    }
+
+    @Test
+    void emptyWeightsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[0]));
+    }
+
+    private static int[] counts(AliasTable table, long seed) {
+        UniformRandomProvider rng = RandomSource.SPLIT_MIX_64.create(seed);
+        int[] counts = new int[table.size()];
+
+        for(int i = 0; i < SAMPLES; i++) counts[table.sample(rng)]++;
+        return counts;
+    }
+
+    /**
+     * Each index's share of the samples is within half a percentage point
+     * of its share of the weight, which a seeded run of this size clears
+     * comfortably.
+     */
+    static void assertProportions(double[] weights, int[] counts) {
+        double total = 0;
+        for(double weight : weights) total += weight;
+
+        int samples = 0;
+        for(int count : counts) samples += count;
+
+        for(int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i] / total, (double) counts[i] / samples, 0.005, "index " + i);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncounterGeneratorTest {
+    private static final int SAMPLES = 200_000;
+
+    private final EncounterGenerator weighted = new WeightedEncounterGenerator();
+    private final EncounterGenerator even = new EvenEncounterGenerator();
+
+    @Test
+    void weightedRollsFollowEncounterRates() {
+        double[] rates = { 50, 25, 15, 10 };
+
+        AliasTableTest.assertProportions(rates, counts(this.weighted, table(rates), species -> true, 11));
+    }
+
+    @Test
+    void evenRollsIgnoreEncounterRates() {
+        AliasTableTest.assertProportions(new double[] { 1, 1, 1, 1 },
+                counts(this.even, table(new double[] { 50, 25, 15, 10 }), species -> true, 12));
+    }
+
+    @Test
+    void filteredRollsFollowTheRatesOfWhatIsLeft() {
+        double[] rates = { 50, 25, 15, 10 };
+
+        // Species are numbered from 1, so this disallows the first entry
+        int[] counts = counts(this.weighted, table(rates), species -> species != 1, 13);
+        AliasTableTest.assertProportions(new double[] { 0, 25, 15, 10 }, counts);
+    }
+
+    @Test
+    void mostlyDisallowedTableFallsBackToAFilteredTable() {
+        // The allowed entries are so rare that rolls almost always run out of
+        // rejections, and the fallback has to keep their relative rates
+        double[] rates = { 1_000_000, 1, 1_000_000, 3 };
+        AtomicInteger checks = new AtomicInteger();
+        IntPredicate allowed = species -> {
+            checks.incrementAndGet();
+            return species == 2 || species == 4;
+        };
+
+        int[] counts = counts(this.weighted, table(rates), allowed, 14);
+
+        assertTrue(checks.get() > SAMPLES * 32L, "rolls should be rejected before falling back");
+        AliasTableTest.assertProportions(new double[] { 0, 1, 0, 3 }, counts);
+    }
+
+    @Test
+    void fullyDisallowedTableHasNoEncounter() {
+        EncounterTable table = table(new double[] { 1, 2, 3 });
+        UniformRandomProvider rng = RandomSource.SPLIT_MIX_64.create(15L);
+
+        assertEquals(-1, this.weighted.sample(table, species -> false, rng));
+        assertEquals(-1, this.even.sample(table, species -> false, rng));
+        assertThrows(IllegalArgumentException.class, () -> this.weighted.getEncounter(table, species -> false, rng));
+    }
+
+    @Test
+    void singleEntryTableAlwaysRollsIt() {
+        EncounterTable table = table(new double[] { 0 });
+        UniformRandomProvider rng = RandomSource.SPLIT_MIX_64.create(16L);
+
+        for(int i = 0; i < 100; i++) {
+            assertEquals(1, this.weighted.getEncounter(table, rng).getNationalDexNumber());
+            assertEquals(1, this.even.getEncounter(table, species -> true, rng).getNationalDexNumber());
+        }
+    }
+
+    @Test
+    void emptyTableHasNoEncounter() {
+        EncounterTable table = table(new double[0]);
+        UniformRandomProvider rng = RandomSource.SPLIT_MIX_64.create(17L);
+
+        assertEquals(-1, this.weighted.sample(table, species -> true, rng));
+        assertThrows(IllegalArgumentException.class, () -> this.weighted.getEncounter(table, rng));
+    }
+
+    /**
+     * A table whose species are numbered 1 up, in rate order.
+     */
+    private static EncounterTable table(double[] rates) {
+        EncounterMode[] modes = new EncounterMode[rates.length];
+        Arrays.fill(modes, EncounterMode.DAY);
+
+        int[] species = new int[rates.length];
+        for(int i = 0; i < rates.length; i++) species[i] = i + 1;
+
+        return new EncounterTable("4", 0, "route", modes, species, rates);
+    }
+
+    private static int[] counts(EncounterGenerator generator, EncounterTable table, IntPredicate allowed, long seed) {
+        UniformRandomProvider rng = RandomSource.SPLIT_MIX_64.create(seed);
+        int[] counts = new int[table.size()];
+
+        for(int i = 0; i < SAMPLES; i++) counts[generator.sample(table, allowed, rng)]++;
+        return counts;
+    }
+}
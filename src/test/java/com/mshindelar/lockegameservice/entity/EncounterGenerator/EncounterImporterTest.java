@@ -0,0 +1,34 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EncounterImporterTest {
+
+    @Test
+    void splitsPlainFields() {
+        assertEquals(Arrays.asList("1", "4", "route-1", "WALK", "16", "0.5"), EncounterImporter.splitCsv("1,4,route-1,WALK,16,0.5"));
+    }
+
+    @Test
+    void keepsEmptyFields() {
+        assertEquals(Arrays.asList("a", "", ""), EncounterImporter.splitCsv("a,,"));
+    }
+
+    @Test
+    void quotedFieldsCanHoldCommasAndQuotes() {
+        assertEquals(Arrays.asList("route 1, north", "say \"hi\"", "3"),
+                EncounterImporter.splitCsv("\"route 1, north\", \"say \"\"hi\"\"\" ,3"));
+    }
+
+    @Test
+    void rejectsMalformedQuoting() {
+        assertThrows(IllegalArgumentException.class, () -> EncounterImporter.splitCsv("\"route 1,4"));
+        assertThrows(IllegalArgumentException.class, () -> EncounterImporter.splitCsv("\"route\" 1,4"));
+        assertThrows(IllegalArgumentException.class, () -> EncounterImporter.splitCsv("route \"1\",4"));
+    }
+}
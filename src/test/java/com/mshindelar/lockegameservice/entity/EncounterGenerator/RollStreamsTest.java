@@ -0,0 +1,61 @@
+package com.mshindelar.lockegameservice.entity.EncounterGenerator;
+
+import org.apache.commons.rng.UniformRandomProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollStreamsTest {
+    private static final long SEED = RollStreams.participantSeed(1234, "player-1");
+
+    @Test
+    void rollReplaysTheSameValues() {
+        for(long roll = 0; roll < 100; roll++) {
+            assertArrayEquals(first(RollStreams.forRoll(SEED, roll), 16), first(RollStreams.forRoll(SEED, roll), 16), "roll " + roll);
+        }
+    }
+
+    @Test
+    void rollValuesDoNotChangeBetweenReleases() {
+        // Stored rolls are replayed from their number, so these must never change
+        assertEquals(-9050827416626850400L, RollStreams.forRoll(SEED, 0).nextLong());
+        assertEquals(-5617404385047415256L, RollStreams.forRoll(SEED, 7).nextLong());
+    }
+
+    @Test
+    void rollsDrawDifferentValues() {
+        Set<Long> firstValues = new HashSet<>();
+        Set<Long> secondValues = new HashSet<>();
+
+        for(long roll = 0; roll < 10_000; roll++) {
+            UniformRandomProvider rng = RollStreams.forRoll(SEED, roll);
+            firstValues.add(rng.nextLong());
+            secondValues.add(rng.nextLong());
+        }
+
+        assertEquals(10_000, firstValues.size());
+        // Neighbouring rolls would share values if their windows overlapped
+        firstValues.retainAll(secondValues);
+        assertTrue(firstValues.isEmpty());
+    }
+
+    @Test
+    void participantsDrawDifferentValues() {
+        long first = RollStreams.forRoll(RollStreams.participantSeed(0, "player-1"), 0).nextLong();
+
+        assertNotEquals(first, RollStreams.forRoll(RollStreams.participantSeed(0, "player-2"), 0).nextLong());
+        assertNotEquals(first, RollStreams.forRoll(RollStreams.participantSeed(1, "player-1"), 0).nextLong());
+        // Seeds differing only in their high half must not share a stream
+        assertNotEquals(RollStreams.participantSeed(1L << 40, "player-1"), RollStreams.participantSeed(1L << 41, "player-1"));
+        assertNotEquals(RollStreams.participantSeed(0, "player-1"), RollStreams.participantSeed(1L << 32, "player-1"));
+    }
+
+    private static long[] first(UniformRandomProvider rng, int count) {
+        long[] values = new long[count];
+        for(int i = 0; i < count; i++) values[i] = rng.nextLong();
+        return values;
+    }
+}
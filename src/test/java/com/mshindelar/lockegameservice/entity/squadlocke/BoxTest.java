@@ -0,0 +1,334 @@
+package com.mshindelar.lockegameservice.entity.squadlocke;
+
+import com.mshindelar.lockegameservice.exception.DuplicateEncounterException;
+import com.mshindelar.lockegameservice.pokeapi.model.Ability;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the indexed box against the original box, which answered every
+ * question by streaming over its contents.
+ */
+class BoxTest {
+    private static final int SPECIES = 8;
+    private static final int LOCATIONS = 12;
+
+    @Test
+    void placeholderIsReplacedByCaughtSpecies() {
+        Box box = new Box();
+        box.add(pokemon("route-1", 1));
+        box.updateEncounter("route-1", "first", 0, Nature.ADAMANT, Gender.MALE, false);
+
+        // Same species again is a placeholder that can be rerolled
+        box.add(pokemon("route-2", 1));
+        assertTrue(box.items().get(1).isPlaceholder());
+
+        SquadlockePokemon reroll = pokemon("route-2", 1);
+        reroll.setNickname("reroll");
+        box.add(reroll);
+
+        assertEquals(Arrays.asList("route-1", "route-2"), box.getEncounterLocations());
+        assertEquals("reroll", box.getEncounterForLocation("route-2").getNickname());
+        assertTrue(box.items().get(1).isPlaceholder());
+        assertTrue(box.needsRewrite());
+    }
+
+    @Test
+    void duplicateLocationIsRejected() {
+        Box box = new Box();
+        box.add(pokemon("route-1", 1));
+
+        assertThrows(DuplicateEncounterException.class, () -> box.add(pokemon("route-1", 2)));
+        assertEquals(1, box.getContents().size());
+    }
+
+    @Test
+    void removeOnlyRemovesAnEqualPokemon() {
+        Box box = new Box();
+        box.add(pokemon("route-1", 1));
+
+        SquadlockePokemon other = pokemon("route-1", 1);
+        other.setNickname("someone else");
+        box.remove(other);
+        assertTrue(box.containsEncounterForLocation("route-1"));
+
+        box.remove(pokemon("route-1", 1));
+        assertFalse(box.containsEncounterForLocation("route-1"));
+        assertTrue(box.getContents().isEmpty());
+    }
+
+    @Test
+    void partitionsKeepBoxOrder() {
+        Box box = new Box();
+        for(int i = 0; i < 5; i++) box.add(pokemon("route-" + i, i + 1));
+
+        box.updateEncounter("route-3", null, 0, Nature.BOLD, Gender.FEMALE, false);
+        box.updateEncounter("route-1", null, 0, Nature.BOLD, Gender.FEMALE, false);
+        box.killPokemon("route-3");
+
+        assertEquals(Collections.singletonList("route-1"), locations(box.getAlivePokemon()));
+        assertEquals(Arrays.asList("route-0", "route-2", "route-3", "route-4"), locations(box.getDeadPokemon()));
+        assertEquals(Arrays.asList("route-0", "route-2", "route-4"), locations(box.getUncaughtPokemon()));
+    }
+
+    @Test
+    void containsSpeciesFollowsCatchesEvolutionsAndRemovals() {
+        Box box = new Box();
+        box.add(pokemon("route-1", 1));
+        assertFalse(box.containsSpecies(1));
+
+        box.updateEncounter("route-1", null, 0, Nature.CALM, Gender.MALE, false);
+        assertTrue(box.containsSpecies(1));
+
+        SquadlockePokemon caught = box.getEncounterForLocation("route-1");
+        box.evolve(caught, model(2));
+        assertFalse(box.containsSpecies(1));
+        assertTrue(box.containsSpecies(2));
+
+        box.remove(caught);
+        assertFalse(box.containsSpecies(2));
+    }
+
+    @Test
+    void unsavedItemsAreThoseAddedSinceTheLastSave() {
+        Box box = new Box();
+        box.add(pokemon("route-1", 1));
+        box.markSaved();
+        box.add(pokemon("route-2", 2));
+
+        assertFalse(box.needsRewrite());
+        assertEquals(Collections.singletonList("route-2"),
+                box.unsavedItems().stream().map(item -> item.getPokemon().getLocationId()).collect(Collectors.toList()));
+
+        box.markSaved();
+        assertTrue(box.unsavedItems().isEmpty());
+    }
+
+    @Test
+    void matchesOriginalBoxOverRandomOperations() {
+        for(long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            Box box = new Box();
+            OriginalBox original = new OriginalBox();
+
+            for(int step = 0; step < 500; step++) {
+                String locationId = "location-" + random.nextInt(LOCATIONS);
+                int species = 1 + random.nextInt(SPECIES);
+                String context = "seed " + seed + ", step " + step;
+
+                switch(random.nextInt(5)) {
+                    case 0:
+                        Throwable expected = failure(() -> original.add(pokemon(locationId, species)));
+                        Throwable actual = failure(() -> box.add(pokemon(locationId, species)));
+                        assertEquals(expected == null, actual == null, context);
+                        break;
+                    case 1:
+                        box.updateEncounter(locationId, "nick-" + step, random.nextInt(2), Nature.MODEST, Gender.FEMALE, random.nextBoolean());
+                        original.updateEncounter(locationId, "nick-" + step, box.getEncounterForLocation(locationId));
+                        break;
+                    case 2:
+                        if(original.getEncounterForLocation(locationId) != null) {
+                            box.killPokemon(locationId);
+                            original.killPokemon(locationId);
+                        }
+                        break;
+                    case 3:
+                        if(original.getEncounterForLocation(locationId) != null) {
+                            box.evolve(box.getEncounterForLocation(locationId), model(species));
+                            original.getEncounterForLocation(locationId).setModel(model(species));
+                        }
+                        break;
+                    default:
+                        SquadlockePokemon present = original.getEncounterForLocation(locationId);
+                        if(present != null) {
+                            box.remove(box.getEncounterForLocation(locationId));
+                            original.remove(present);
+                        }
+                }
+
+                assertSameAnswers(original, box, context);
+            }
+        }
+    }
+
+    private static void assertSameAnswers(OriginalBox original, Box box, String context) {
+        assertEquals(original.getContents(), box.getContents(), context);
+        assertEquals(original.getAlivePokemon(), box.getAlivePokemon(), context);
+        assertEquals(original.getDeadPokemon(), box.getDeadPokemon(), context);
+        assertEquals(original.getUncaughtPokemon(), box.getUncaughtPokemon(), context);
+        assertEquals(original.getEncounterLocations(), box.getEncounterLocations(), context);
+
+        for(int species = 0; species <= SPECIES + 1; species++) {
+            assertEquals(original.containsSpecies(species), box.containsSpecies(species), context + ", species " + species);
+        }
+
+        for(int location = 0; location < LOCATIONS; location++) {
+            String locationId = "location-" + location;
+            assertEquals(original.containsEncounterForLocation(locationId), box.containsEncounterForLocation(locationId), context);
+            assertEquals(original.getEncounterForLocation(locationId), box.getEncounterForLocation(locationId), context);
+        }
+
+        for(int i = 0; i < original.contents.size(); i++) {
+            assertEquals(original.contents.get(i).isPlaceholder(), box.items().get(i).isPlaceholder(), context);
+            assertEquals(original.contents.get(i).isCaught(), box.items().get(i).isCaught(), context);
+        }
+    }
+
+    private static Throwable failure(Runnable operation) {
+        try {
+            operation.run();
+            return null;
+        } catch(DuplicateEncounterException e) {
+            return e;
+        }
+    }
+
+    private static List<String> locations(List<SquadlockePokemon> pokemon) {
+        return pokemon.stream().map(SquadlockePokemon::getLocationId).collect(Collectors.toList());
+    }
+
+    private static SquadlockePokemon pokemon(String locationId, int species) {
+        SquadlockePokemon pokemon = new SquadlockePokemon();
+        pokemon.setLocationId(locationId);
+        pokemon.setModel(model(species));
+        pokemon.setEncounteredAt(new Date(species));
+        return pokemon;
+    }
+
+    private static Pokemon model(int species) {
+        Ability first = new Ability();
+        first.setName("ability-" + species);
+        Ability hidden = new Ability();
+        hidden.setName("hidden-" + species);
+        hidden.setHidden(true);
+
+        Pokemon model = new Pokemon();
+        model.setId(species);
+        model.setName("species-" + species);
+        model.setAbilities(Arrays.asList(first, hidden));
+        return model;
+    }
+
+    /**
+     * The box as it was before it was indexed, kept as the reference the
+     * indexed box has to agree with.
+     */
+    private static class OriginalBox {
+        private final List<BoxItem> contents = new LinkedList<>();
+
+        void add(SquadlockePokemon pokemon) {
+            BoxItem item = new BoxItem();
+            item.setPokemon(pokemon);
+            if(this.containsEncounterForLocation(pokemon.getLocationId())) {
+                BoxItem i = this.getBoxItemForLocation(pokemon.getLocationId());
+
+                if(i.isPlaceholder() && this.containsSpecies(pokemon.getModel().getId())) {
+                    this.remove(i.getPokemon());
+                } else {
+                    throw new DuplicateEncounterException("Encounter for " + pokemon.getLocationId() + " already exists");
+                }
+            }
+
+            item.setPlaceholder(this.containsSpecies(pokemon.getModel().getId()));
+            item.setCaught(false);
+            this.contents.add(item);
+        }
+
+        void remove(SquadlockePokemon pokemon) {
+            BoxItem match = this.contents.stream()
+                    .filter(i -> i.getPokemon().equals(pokemon))
+                    .findFirst()
+                    .orElse(null);
+
+            this.contents.remove(match);
+        }
+
+        boolean containsSpecies(int nationalDexNumber) {
+            return this.contents.stream()
+                    .filter(i -> !i.isPlaceholder() && i.isCaught())
+                    .anyMatch(i -> i.getPokemon().getModel().getId() == nationalDexNumber);
+        }
+
+        boolean containsEncounterForLocation(String locationId) {
+            return this.contents.stream()
+                    .anyMatch(i -> i.getPokemon().getLocationId().equals(locationId));
+        }
+
+        List<SquadlockePokemon> getContents() {
+            return this.contents.stream()
+                    .map(BoxItem::getPokemon)
+                    .collect(Collectors.toList());
+        }
+
+        List<SquadlockePokemon> getAlivePokemon() {
+            return this.contents.stream()
+                    .map(BoxItem::getPokemon)
+                    .filter(SquadlockePokemon::isAlive)
+                    .collect(Collectors.toList());
+        }
+
+        List<SquadlockePokemon> getDeadPokemon() {
+            return this.contents.stream()
+                    .map(BoxItem::getPokemon)
+                    .filter(p -> !p.isAlive())
+                    .collect(Collectors.toList());
+        }
+
+        List<SquadlockePokemon> getUncaughtPokemon() {
+            return this.contents.stream()
+                    .filter(i -> !i.isCaught())
+                    .map(BoxItem::getPokemon)
+                    .collect(Collectors.toList());
+        }
+
+        List<String> getEncounterLocations() {
+            return this.contents.stream()
+                    .map(BoxItem::getPokemon)
+                    .map(SquadlockePokemon::getLocationId)
+                    .collect(Collectors.toList());
+        }
+
+        SquadlockePokemon getEncounterForLocation(String locationId) {
+            return this.contents.stream()
+                    .map(BoxItem::getPokemon)
+                    .filter(p -> p.getLocationId().equals(locationId))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        /**
+         * Applies the same update the indexed box made, copying the fields
+         * it set from its pokemon so both boxes hold equal pokemon.
+         */
+        void updateEncounter(String locationId, String nickname, SquadlockePokemon updated) {
+            BoxItem item = this.getBoxItemForLocation(locationId);
+
+            if(item == null) return;
+
+            item.setPlaceholder(false);
+            item.setCaught(true);
+            item.getPokemon().setAlive(true);
+            item.getPokemon().setNickname(nickname);
+            item.getPokemon().setAbility(updated.getAbility());
+            item.getPokemon().setNature(updated.getNature());
+            item.getPokemon().setGender(updated.getGender());
+            item.getPokemon().setShiny(updated.isShiny());
+        }
+
+        void killPokemon(String locationId) {
+            this.getEncounterForLocation(locationId).setAlive(false);
+        }
+
+        private BoxItem getBoxItemForLocation(String locationId) {
+            return this.contents.stream()
+                    .filter(i -> i.getPokemon().getLocationId().equals(locationId))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+}
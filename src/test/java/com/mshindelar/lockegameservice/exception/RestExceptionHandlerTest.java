@@ -0,0 +1,84 @@
+package com.mshindelar.lockegameservice.exception;
+
+import com.mshindelar.lockegameservice.controller.SquadlockeController;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.EncounterMode;
+import com.mshindelar.lockegameservice.service.SquadlockeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class RestExceptionHandlerTest {
+    private SquadlockeService squadlockeService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        this.squadlockeService = Mockito.mock(SquadlockeService.class);
+
+        SquadlockeController controller = new SquadlockeController();
+        ReflectionTestUtils.setField(controller, "squadlockeService", this.squadlockeService);
+
+        this.mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new RestExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void exhaustedConflictIsAConflict() throws Exception {
+        Mockito.when(this.squadlockeService.readyParticipant("game", "player"))
+                .thenThrow(new OptimisticLockingFailureException("Game game was changed by another request"));
+
+        this.mockMvc.perform(post("/games/squadlocke/game/participants/player/ready"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Game game was changed by another request"));
+    }
+
+    @Test
+    void duplicateJoinIsAConflict() throws Exception {
+        Mockito.when(this.squadlockeService.readyParticipant("game", "player"))
+                .thenThrow(new DuplicateGameResourceException("User is already a participant."));
+
+        this.mockMvc.perform(post("/games/squadlocke/game/participants/player/ready"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void improperGameStateIsABadRequest() throws Exception {
+        Mockito.when(this.squadlockeService.readyParticipant("game", "player"))
+                .thenThrow(new ImproperGameStateException("Players cannot ready up outside of the checkpoint gamestate."));
+
+        this.mockMvc.perform(post("/games/squadlocke/game/participants/player/ready"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Players cannot ready up outside of the checkpoint gamestate."));
+    }
+
+    @Test
+    void exhaustedAsyncConflictIsAConflict() throws Exception {
+        Mockito.when(this.squadlockeService.getEncounterAsync(eq("game"), eq("player"), eq("route-1"), eq(EncounterMode.DAY), anyBoolean()))
+                .thenReturn(CompletableFuture.failedFuture(new CompletionException(
+                        new OptimisticLockingFailureException("Game game was changed by another request"))));
+
+        MvcResult result = this.mockMvc.perform(post("/games/squadlocke/game/encounter")
+                        .param("participantId", "player")
+                        .param("locationId", "route-1")
+                        .param("encounterMode", EncounterMode.DAY.name()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isConflict());
+    }
+}
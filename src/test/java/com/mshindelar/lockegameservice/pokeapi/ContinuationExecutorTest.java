@@ -0,0 +1,84 @@
+package com.mshindelar.lockegameservice.pokeapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContinuationExecutorTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor pool;
+    private ContinuationExecutor continuations;
+
+    @BeforeEach
+    void setUp() {
+        this.pool = new ThreadPoolTaskExecutor();
+        this.pool.setThreadNamePrefix("continuation-test-");
+        this.pool.setCorePoolSize(1);
+        this.pool.setMaxPoolSize(1);
+        this.pool.setQueueCapacity(0);
+        this.pool.initialize();
+        this.continuations = new ContinuationExecutor(this.pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.release.countDown();
+        this.pool.shutdown();
+    }
+
+    @Test
+    void runsWorkOnThePool() throws Exception {
+        CompletableFuture<String> source = CompletableFuture.supplyAsync(() -> "species");
+
+        String thread = this.continuations.thenApply(source, value -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(thread.startsWith("continuation-test-"), thread);
+    }
+
+    @Test
+    void saturatedPoolFailsTheFuture() throws Exception {
+        this.saturate();
+
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> continued = this.continuations.thenApply(source, value -> value);
+        // Completing the source must not throw at the completing thread, which is usually an event loop
+        CompletableFuture.runAsync(() -> source.complete("species")).get(5, TimeUnit.SECONDS);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> continued.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TaskRejectedException, e.getCause().toString());
+
+        CompletableFuture<String> supplied = this.continuations.supply(() -> "mirror");
+        e = assertThrows(ExecutionException.class, () -> supplied.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TaskRejectedException, e.getCause().toString());
+    }
+
+    @Test
+    void failuresArePassedOn() {
+        IllegalStateException failure = new IllegalStateException("upstream");
+
+        CompletableFuture<String> skipped = this.continuations.thenApply(CompletableFuture.failedFuture(failure), value -> "unreachable");
+        CompletableFuture<String> thrown = this.continuations.supply(() -> { throw failure; });
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> skipped.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> thrown.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    private void saturate() {
+        this.pool.execute(() -> {
+            try {
+                this.release.await();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+}
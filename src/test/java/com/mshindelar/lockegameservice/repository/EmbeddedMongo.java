@@ -0,0 +1,53 @@
+package com.mshindelar.lockegameservice.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A mongod for repository tests, started the first time one is needed and
+ * shared by every test after that. Updates use array filters, which need
+ * 3.6 or later.
+ */
+final class EmbeddedMongo {
+    private static MongoClient client;
+
+    private EmbeddedMongo() { }
+
+    /**
+     * A template against an empty database.
+     */
+    static synchronized MongoTemplate template(String database) {
+        if(client == null) client = start();
+
+        MongoTemplate template = new MongoTemplate(client, database);
+        template.getDb().drop();
+        return template;
+    }
+
+    private static MongoClient start() {
+        try {
+            int port = Network.getFreeServerPort();
+            MongodExecutable mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+                    .version(Version.Main.V4_0)
+                    .net(new Net(port, Network.localhostIsIPv6()))
+                    .build());
+
+            mongod.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(mongod::stop));
+
+            return MongoClients.create("mongodb://localhost:" + port);
+        } catch(IOException e) {
+            throw new UncheckedIOException("Could not start embedded mongod", e);
+        }
+    }
+}
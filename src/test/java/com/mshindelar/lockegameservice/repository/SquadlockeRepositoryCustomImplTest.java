@@ -0,0 +1,349 @@
+package com.mshindelar.lockegameservice.repository;
+
+import com.mshindelar.lockegameservice.entity.squadlocke.*;
+import com.mshindelar.lockegameservice.entity.squadlocke.state.CheckpointGameState;
+import com.mshindelar.lockegameservice.entity.squadlocke.state.GameStateType;
+import com.mshindelar.lockegameservice.entity.squadlocke.state.RegistrationGameState;
+import com.mshindelar.lockegameservice.pokeapi.ContinuationExecutor;
+import com.mshindelar.lockegameservice.pokeapi.model.Ability;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import com.mshindelar.lockegameservice.service.ConflictRetryExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Checks what the targeted updates leave in the database, for games that
+ * embed their participants and games that store them separately.
+ */
+class SquadlockeRepositoryCustomImplTest {
+    private static final String PLAYER = "player-1";
+
+    private MongoTemplate mongoTemplate;
+    private SquadlockeRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        this.mongoTemplate = Mockito.spy(EmbeddedMongo.template("squadlocke-repository"));
+        this.repository = new SquadlockeRepositoryCustomImpl();
+
+        ReflectionTestUtils.setField(this.repository, "mongoTemplate", this.mongoTemplate);
+        ReflectionTestUtils.setField(this.repository, "participantRepository",
+                new MongoRepositoryFactory(this.mongoTemplate).getRepository(SquadlockeParticipantRepository.class));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParticipantStorage.class)
+    void newEncountersAreAppended(ParticipantStorage storage) {
+        Squadlocke game = this.createGame(storage);
+        SquadlockeParticipant participant = this.repository.getParticipant(game, PLAYER);
+
+        participant.getBox().add(pokemon("route-1", 1, null));
+        participant.nextRoll();
+        assertTrue(this.repository.saveEncounters(game, Collections.singleton(participant)));
+
+        participant.getBox().add(pokemon("route-2", 2, null));
+        participant.nextRoll();
+        assertTrue(this.repository.saveEncounters(game, Collections.singleton(participant)));
+
+        // Only the second encounter is sent, pushed onto what is stored
+        Document push = this.lastUpdate().getUpdateObject().get("$push", Document.class);
+        Update.Modifiers pushed = (Update.Modifiers) push.get(contentsPath(storage, "participant0"));
+        Update.Modifier each = pushed.getModifiers().iterator().next();
+        assertEquals("$each", each.getKey());
+        assertEquals(1, ((Object[]) each.getValue()).length);
+        assertFalse(this.lastUpdate().getUpdateObject().get("$set", Document.class).containsKey(contentsPath(storage, "participant0")));
+
+        Document stored = this.storedParticipant(game, storage);
+        assertEquals(Arrays.asList("route-1", "route-2"), storedLocations(stored));
+        assertEquals(2L, ((Number) stored.get("rollCount")).longValue());
+        assertTrue(participant.getBox().unsavedItems().isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParticipantStorage.class)
+    void lookupsAreNotStored(ParticipantStorage storage) {
+        Squadlocke game = this.createGame(storage);
+        SquadlockeParticipant participant = this.repository.getParticipant(game, PLAYER);
+        Box box = participant.getBox();
+
+        box.add(pokemon("route-1", 1, null));
+        box.updateEncounter("route-1", null, 0, Nature.CALM, Gender.MALE, false);
+        assertTrue(box.containsSpecies(1));
+        assertTrue(game.isParticipant(PLAYER));
+        assertTrue(this.repository.saveEncounters(game, Collections.singleton(participant)));
+
+        // Only the contents are stored, the lookups over them are rebuilt on read
+        Document stored = this.storedParticipant(game, storage);
+        assertEquals(Collections.singleton("contents"), stored.get("box", Document.class).keySet());
+        assertFalse(stored.containsKey("recordVersion"));
+
+        Document storedGame = this.mongoTemplate.getCollection("squadlocke").find(new Document("_id", new ObjectId(game.getId()))).first();
+        assertNotNull(storedGame);
+        assertFalse(storedGame.containsKey("participantsById"));
+        assertFalse(storedGame.containsKey("readyCount"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParticipantStorage.class)
+    void replacedPlaceholderRewritesTheBox(ParticipantStorage storage) {
+        Squadlocke game = this.createGame(storage);
+        SquadlockeParticipant participant = this.repository.getParticipant(game, PLAYER);
+        Box box = participant.getBox();
+
+        box.add(pokemon("route-1", 1, null));
+        assertTrue(this.repository.saveEncounters(game, Collections.singleton(participant)));
+        box.updateEncounter("route-1", "first", 0, Nature.CALM, Gender.MALE, false);
+        assertTrue(this.repository.saveCaughtEncounter(game, participant, box.getEncounterForLocation("route-1")));
+
+        box.add(pokemon("route-2", 1, "placeholder"));
+        box.add(pokemon("route-3", 3, null));
+        assertTrue(this.repository.saveEncounters(game, Collections.singleton(participant)));
+
+        box.add(pokemon("route-2", 1, "reroll"));
+        assertTrue(box.needsRewrite());
+        assertTrue(this.repository.saveEncounters(game, Collections.singleton(participant)));
+
+        // The whole box is set rather than pushed onto
+        Update update = this.lastUpdate();
+        assertNull(update.getUpdateObject().get("$push"));
+        assertTrue(update.getUpdateObject().get("$set", Document.class).containsKey(contentsPath(storage, "participant0")));
+
+        Document stored = this.storedParticipant(game, storage);
+        assertEquals(Arrays.asList("route-1", "route-3", "route-2"), storedLocations(stored));
+        assertEquals("reroll", storedItem(stored, "route-2").get("pokemon", Document.class).getString("nickname"));
+        assertEquals(true, storedItem(stored, "route-1").getBoolean("caught"));
+        assertFalse(box.needsRewrite());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParticipantStorage.class)
+    void caughtEncounterUpdatesOnlyItsItem(ParticipantStorage storage) {
+        Squadlocke game = this.createGame(storage);
+        SquadlockeParticipant participant = this.repository.getParticipant(game, PLAYER);
+        Box box = participant.getBox();
+
+        box.add(pokemon("route-1", 1, null));
+        box.add(pokemon("route-2", 2, null));
+        assertTrue(this.repository.saveEncounters(game, Collections.singleton(participant)));
+
+        box.updateEncounter("route-2", "caught", 1, Nature.BOLD, Gender.FEMALE, true);
+        assertTrue(this.repository.saveCaughtEncounter(game, participant, box.getEncounterForLocation("route-2")));
+
+        Update update = this.lastUpdate();
+        assertTrue(update.getUpdateObject().get("$set", Document.class).containsKey(itemPath(storage) + ".caught"));
+        assertTrue(update.getArrayFilters().stream()
+                .anyMatch(filter -> filter.asDocument().containsKey("item.pokemon.locationId")));
+
+        Document stored = this.storedParticipant(game, storage);
+        Document caught = storedItem(stored, "route-2");
+        assertEquals(true, caught.getBoolean("caught"));
+        assertEquals(false, caught.getBoolean("isPlaceholder"));
+        assertEquals("caught", caught.get("pokemon", Document.class).getString("nickname"));
+        assertEquals("BOLD", caught.get("pokemon", Document.class).getString("nature"));
+
+        Document untouched = storedItem(stored, "route-1");
+        assertEquals(false, untouched.getBoolean("caught"));
+        assertNull(untouched.get("pokemon", Document.class).getString("nickname"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParticipantStorage.class)
+    void evolutionChangesOnlyItsModel(ParticipantStorage storage) {
+        Squadlocke game = this.createGame(storage);
+        SquadlockeParticipant participant = this.repository.getParticipant(game, PLAYER);
+        Box box = participant.getBox();
+
+        box.add(pokemon("route-1", 1, null));
+        box.add(pokemon("route-2", 2, null));
+        assertTrue(this.repository.saveEncounters(game, Collections.singleton(participant)));
+
+        assertTrue(this.repository.setEncounterModel(game, participant, "route-1", model(4)));
+
+        assertTrue(this.lastUpdate().getUpdateObject().get("$set", Document.class).containsKey(itemPath(storage) + ".pokemon.model"));
+
+        Document stored = this.storedParticipant(game, storage);
+        assertEquals(4, storedItem(stored, "route-1").get("pokemon", Document.class).get("model", Document.class).get("_id"));
+        assertEquals(2, storedItem(stored, "route-2").get("pokemon", Document.class).get("model", Document.class).get("_id"));
+    }
+
+    @Test
+    void gameWithoutAVersionIsUpdatedAndVersioned() {
+        Squadlocke created = this.createGame(ParticipantStorage.EMBEDDED);
+
+        // Games written before versioning have no version field at all
+        this.mongoTemplate.getCollection("squadlocke").updateOne(new Document("_id", new ObjectId(created.getId())),
+                new Document("$unset", new Document("version", "")));
+        Squadlocke legacy = this.mongoTemplate.findById(created.getId(), Squadlocke.class);
+        assertNotNull(legacy);
+        assertNull(legacy.getVersion());
+
+        assertTrue(this.repository.setGameState(legacy, new CheckpointGameState(1)));
+
+        assertEquals(1L, legacy.getVersion());
+        Squadlocke stored = this.mongoTemplate.findById(created.getId(), Squadlocke.class);
+        assertEquals(1L, stored.getVersion());
+        assertEquals(GameStateType.CHECKPOINT, stored.getGameState().getGameStateType());
+    }
+
+    @Test
+    void staleCopyIsRejected() {
+        Squadlocke created = this.createGame(ParticipantStorage.EMBEDDED);
+        Squadlocke first = this.mongoTemplate.findById(created.getId(), Squadlocke.class);
+        Squadlocke second = this.mongoTemplate.findById(created.getId(), Squadlocke.class);
+
+        assertTrue(this.repository.setGameState(first, new CheckpointGameState(1)));
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> this.repository.setGameState(second, new RegistrationGameState()));
+
+        Squadlocke stored = this.mongoTemplate.findById(created.getId(), Squadlocke.class);
+        assertEquals(GameStateType.CHECKPOINT, stored.getGameState().getGameStateType());
+        assertEquals(first.getVersion(), stored.getVersion());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParticipantStorage.class)
+    void concurrentRollsAreAllKept(ParticipantStorage storage) throws Exception {
+        String gameId = this.createGame(storage).getId();
+        ConflictRetryExecutor executor = new ConflictRetryExecutor(50, Duration.ofMillis(1), Duration.ofMillis(20), new SimpleMeterRegistry(),
+                new ContinuationExecutor(new SyncTaskExecutor()));
+        int rolls = 8;
+
+        // Each roll re-reads the game and adds its own encounter, so every
+        // one of them has to end up stored however their writes interleave
+        ExecutorService pool = Executors.newFixedThreadPool(rolls);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for(int i = 0; i < rolls; i++) {
+            String locationId = "route-" + i;
+            results.add(pool.submit(() -> {
+                start.await();
+                return executor.execute("roll", () -> {
+                    Squadlocke game = this.mongoTemplate.findById(gameId, Squadlocke.class);
+                    SquadlockeParticipant participant = this.repository.getParticipant(game, PLAYER);
+
+                    participant.getBox().add(pokemon(locationId, 1, null));
+                    participant.nextRoll();
+                    return this.repository.saveEncounters(game, Collections.singleton(participant));
+                });
+            }));
+        }
+
+        start.countDown();
+        for(Future<Boolean> result : results) assertTrue(result.get(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        Squadlocke game = this.mongoTemplate.findById(gameId, Squadlocke.class);
+        Document stored = this.storedParticipant(game, storage);
+        assertEquals(rolls, storedLocations(stored).size());
+        assertEquals(rolls, new HashSet<>(storedLocations(stored)).size());
+        assertEquals((long) rolls, ((Number) stored.get("rollCount")).longValue());
+    }
+
+    private Squadlocke createGame(ParticipantStorage storage) {
+        Squadlocke game = new Squadlocke();
+        game.setCreatorId(PLAYER);
+        game.setParticipants(new HashSet<>(Collections.singleton(new SquadlockeParticipant(PLAYER))));
+        game.setGameState(new RegistrationGameState());
+        game.setCreatedAt(new Date());
+        game.setParticipantStorage(storage);
+
+        return this.repository.createGame(game);
+    }
+
+    private Update lastUpdate() {
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        Mockito.verify(this.mongoTemplate, Mockito.atLeastOnce()).updateFirst(any(Query.class), updates.capture(), any(Class.class));
+        return updates.getValue();
+    }
+
+    /**
+     * The participant as stored, embedded in the game or in their own record.
+     */
+    private Document storedParticipant(Squadlocke game, ParticipantStorage storage) {
+        if(storage == ParticipantStorage.SEPARATE) {
+            Document record = this.mongoTemplate.getCollection("squadlocke-participants")
+                    .find(new Document("_id", SquadlockeParticipantRecord.idOf(game.getId(), PLAYER)))
+                    .first();
+            assertNotNull(record);
+            return record.get("participant", Document.class);
+        }
+
+        Document stored = this.mongoTemplate.getCollection("squadlocke").find(new Document("_id", new ObjectId(game.getId()))).first();
+        assertNotNull(stored);
+        return stored.getList("participants", Document.class).stream()
+                .filter(participant -> PLAYER.equals(participant.get("_id")))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+    }
+
+    private static List<Document> storedItems(Document participant) {
+        return participant.get("box", Document.class).getList("contents", Document.class);
+    }
+
+    private static List<String> storedLocations(Document participant) {
+        return storedItems(participant).stream()
+                .map(item -> item.get("pokemon", Document.class).getString("locationId"))
+                .collect(Collectors.toList());
+    }
+
+    private static Document storedItem(Document participant, String locationId) {
+        return storedItems(participant).stream()
+                .filter(item -> locationId.equals(item.get("pokemon", Document.class).getString("locationId")))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+    }
+
+    private static String contentsPath(ParticipantStorage storage, String identifier) {
+        return (storage == ParticipantStorage.SEPARATE ? "participant" : "participants.$[" + identifier + "]") + ".box.contents";
+    }
+
+    private static String itemPath(ParticipantStorage storage) {
+        return contentsPath(storage, "participant") + ".$[item]";
+    }
+
+    private static SquadlockePokemon pokemon(String locationId, int species, String nickname) {
+        SquadlockePokemon pokemon = new SquadlockePokemon();
+        pokemon.setLocationId(locationId);
+        pokemon.setModel(model(species));
+        pokemon.setNickname(nickname);
+        pokemon.setEncounteredAt(new Date());
+        return pokemon;
+    }
+
+    private static Pokemon model(int species) {
+        Ability ability = new Ability();
+        ability.setName("ability-" + species);
+        Ability hidden = new Ability();
+        hidden.setName("hidden-" + species);
+        hidden.setHidden(true);
+
+        Pokemon model = new Pokemon();
+        model.setId(species);
+        model.setName("species-" + species);
+        model.setAbilities(Arrays.asList(ability, hidden));
+        return model;
+    }
+}
@@ -0,0 +1,159 @@
+package com.mshindelar.lockegameservice.service;
+
+import com.mshindelar.lockegameservice.pokeapi.ContinuationExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictRetryExecutorTest {
+    private static final String OPERATION = "test";
+
+    private MeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor continuationPool;
+    private ConflictRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.continuationPool = new ThreadPoolTaskExecutor();
+        this.continuationPool.setThreadNamePrefix("asyncContinuation-");
+        this.continuationPool.initialize();
+        this.executor = new ConflictRetryExecutor(3, Duration.ofMillis(1), Duration.ofMillis(5), this.meterRegistry,
+                new ContinuationExecutor(this.continuationPool));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.continuationPool.shutdown();
+    }
+
+    @Test
+    void retriesUntilTheMutationSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = this.executor.execute(OPERATION, () -> {
+            if(calls.incrementAndGet() < 3) throw new OptimisticLockingFailureException("conflict");
+            return "saved";
+        });
+
+        assertEquals("saved", result);
+        assertEquals(3, calls.get());
+        assertCounts(3, 2, 0);
+    }
+
+    @Test
+    void rethrowsTheConflictOnceAttemptsRunOut() {
+        OptimisticLockingFailureException conflict = new OptimisticLockingFailureException("conflict");
+        AtomicInteger calls = new AtomicInteger();
+
+        OptimisticLockingFailureException thrown = assertThrows(OptimisticLockingFailureException.class,
+                () -> this.executor.execute(OPERATION, () -> {
+                    calls.incrementAndGet();
+                    throw conflict;
+                }));
+
+        assertSame(conflict, thrown);
+        assertEquals(3, calls.get());
+        assertCounts(3, 3, 1);
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> this.executor.execute(OPERATION, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("not a conflict");
+        }));
+
+        assertEquals(1, calls.get());
+        assertCounts(1, 0, 0);
+    }
+
+    @Test
+    void retriesWrappedAsyncConflictsOffTheCallingThread() throws Exception {
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> result = this.executor.executeAsync(OPERATION, () -> {
+            threads.add(Thread.currentThread());
+            if(threads.size() < 3) {
+                // Failures from dependent stages arrive wrapped
+                return CompletableFuture.failedFuture(new CompletionException(new OptimisticLockingFailureException("conflict")));
+            }
+            return CompletableFuture.completedFuture("saved");
+        });
+
+        assertEquals("saved", result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, threads.size());
+        assertSame(Thread.currentThread(), threads.get(0));
+        // Retries are rescheduled onto the continuation pool after their backoff instead of run in place
+        assertTrue(threads.get(1).getName().startsWith("asyncContinuation-"), threads.get(1).getName());
+        assertTrue(threads.get(2).getName().startsWith("asyncContinuation-"), threads.get(2).getName());
+        assertCounts(3, 2, 0);
+    }
+
+    @Test
+    void retriesConflictsThrownBeforeAnAsyncMutationStarts() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = this.executor.executeAsync(OPERATION, () -> {
+            if(calls.incrementAndGet() < 2) throw new OptimisticLockingFailureException("conflict");
+            return CompletableFuture.completedFuture("saved");
+        });
+
+        assertEquals("saved", result.get(5, TimeUnit.SECONDS));
+        assertCounts(2, 1, 0);
+    }
+
+    @Test
+    void failsTheAsyncResultOnceAttemptsRunOut() {
+        OptimisticLockingFailureException conflict = new OptimisticLockingFailureException("conflict");
+
+        CompletableFuture<String> result = this.executor.executeAsync(OPERATION,
+                () -> CompletableFuture.failedFuture(new CompletionException(conflict)));
+
+        CompletionException thrown = assertThrows(CompletionException.class, result::join);
+        assertSame(conflict, thrown.getCause());
+        assertCounts(3, 3, 1);
+    }
+
+    @Test
+    void otherAsyncFailuresAreNotRetried() {
+        IllegalStateException failure = new IllegalStateException("not a conflict");
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = this.executor.executeAsync(OPERATION, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.failedFuture(new CompletionException(failure));
+        });
+
+        CompletionException thrown = assertThrows(CompletionException.class, result::join);
+        assertSame(failure, thrown.getCause());
+        assertEquals(1, calls.get());
+        assertCounts(1, 0, 0);
+    }
+
+    private void assertCounts(double attempts, double conflicts, double exhausted) {
+        assertEquals(attempts, this.count("attempts"));
+        assertEquals(conflicts, this.count("conflicts"));
+        assertEquals(exhausted, this.count("exhausted"));
+    }
+
+    private double count(String outcome) {
+        return this.meterRegistry.counter("squadlocke.writes", "operation", OPERATION, "outcome", outcome).count();
+    }
+}
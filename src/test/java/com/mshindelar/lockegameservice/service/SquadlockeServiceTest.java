@@ -0,0 +1,215 @@
+package com.mshindelar.lockegameservice.service;
+
+import com.mshindelar.lockegameservice.controller.SquadlockeController;
+import com.mshindelar.lockegameservice.entity.EncounterGenerator.*;
+import com.mshindelar.lockegameservice.entity.squadlocke.*;
+import com.mshindelar.lockegameservice.entity.squadlocke.configuration.SquadlockeSettings;
+import com.mshindelar.lockegameservice.entity.squadlocke.state.CheckpointGameState;
+import com.mshindelar.lockegameservice.entity.squadlocke.state.RegistrationGameState;
+import com.mshindelar.lockegameservice.exception.DuplicateGameResourceException;
+import com.mshindelar.lockegameservice.exception.ImproperGameStateException;
+import com.mshindelar.lockegameservice.exception.RestExceptionHandler;
+import com.mshindelar.lockegameservice.pokeapi.AsyncPokeApiClient;
+import com.mshindelar.lockegameservice.pokeapi.ContinuationExecutor;
+import com.mshindelar.lockegameservice.pokeapi.PokeApiClient;
+import com.mshindelar.lockegameservice.pokeapi.model.Ability;
+import com.mshindelar.lockegameservice.pokeapi.model.Pokemon;
+import com.mshindelar.lockegameservice.repository.SquadlockeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class SquadlockeServiceTest {
+    private static final String GAME = "game";
+    private static final String PLAYER = "player-1";
+    private static final int STARTER = 1;
+
+    private final EncounterTable table = new EncounterTable("4", 0, "route", new EncounterMode[] {
+            EncounterMode.DAY, EncounterMode.DAY, EncounterMode.DAY, EncounterMode.DAY, EncounterMode.DAY, EncounterMode.DAY
+    }, new int[] { 1, 2, 3, 4, 5, 6 }, new double[] { 40, 20, 15, 10, 10, 5 });
+
+    private Squadlocke game;
+    private SquadlockeParticipant participant;
+    private EncounterGenerationService encounterGenerationService;
+    private SquadlockeRepository squadlockeRepository;
+    private SquadlockeService squadlockeService;
+
+    @BeforeEach
+    void setUp() {
+        this.participant = participant();
+        this.game = new Squadlocke();
+        this.game.setId(GAME);
+        this.game.setSettings(new SquadlockeSettings(4));
+        this.game.setGameState(new CheckpointGameState(1));
+        this.game.setParticipants(new HashSet<>(Collections.singleton(this.participant)));
+
+        EncounterIndex encounterIndex = Mockito.mock(EncounterIndex.class);
+        Mockito.when(encounterIndex.getEncounterTable(anyString(), anyInt(), anyString(), anyCollection())).thenReturn(this.table);
+
+        this.encounterGenerationService = new EncounterGenerationService();
+        ReflectionTestUtils.setField(this.encounterGenerationService, "encounterIndex", encounterIndex);
+        ReflectionTestUtils.setField(this.encounterGenerationService, "encounterGeneratorFactory", new EncounterGeneratorFactory());
+
+        this.squadlockeRepository = Mockito.mock(SquadlockeRepository.class);
+        Mockito.when(this.squadlockeRepository.findById(GAME)).thenReturn(Optional.of(this.game));
+        Mockito.when(this.squadlockeRepository.getParticipant(this.game, PLAYER)).thenReturn(this.participant);
+        Mockito.when(this.squadlockeRepository.saveEncounters(eq(this.game), anyCollection())).thenReturn(true);
+
+        PokeApiClient pokeApiClient = Mockito.mock(PokeApiClient.class);
+        Mockito.when(pokeApiClient.getPokemon(anyInt())).thenAnswer(invocation -> model(invocation.getArgument(0)));
+
+        this.squadlockeService = new SquadlockeService();
+        ReflectionTestUtils.setField(this.squadlockeService, "squadlockeRepository", this.squadlockeRepository);
+        ReflectionTestUtils.setField(this.squadlockeService, "encounterGenerationService", this.encounterGenerationService);
+        ReflectionTestUtils.setField(this.squadlockeService, "pokeApiClient", pokeApiClient);
+        ReflectionTestUtils.setField(this.squadlockeService, "conflictRetryExecutor",
+                new ConflictRetryExecutor(3, Duration.ofMillis(1), Duration.ofMillis(5), new SimpleMeterRegistry(),
+                        new ContinuationExecutor(new SyncTaskExecutor())));
+    }
+
+    @Test
+    void rollsReplayFromTheSeedAndRollNumber() {
+        for(int i = 0; i < 50; i++) {
+            this.squadlockeService.getEncounter(GAME, PLAYER, "route-" + i, EncounterMode.DAY, true);
+        }
+
+        assertEquals(50, this.participant.getRollCount());
+        assertTrue(this.participant.getBox().getContents().stream().map(p -> p.getModel().getId()).distinct().count() > 1);
+
+        // Nothing was caught after the starter, so each roll saw the same box a replay does
+        SquadlockeParticipant replay = participant();
+        for(int i = 0; i < 50; i++) {
+            SquadlockePokemon rolled = this.participant.getBox().getEncounterForLocation("route-" + i);
+            assertEquals(i, rolled.getEncounterRoll());
+            assertNotEquals(STARTER, rolled.getModel().getId());
+
+            Encounter replayed = this.encounterGenerationService.getEncounter(replay, rolled.getEncounterRoll(), "4", "route-" + i,
+                    Collections.singletonList(EncounterMode.DAY), this.game.getSettings().getEncounterGeneratorSettings(), true);
+            assertEquals(rolled.getModel().getId(), replayed.getNationalDexNumber(), "roll " + i);
+        }
+    }
+
+    @Test
+    void unsavedEncounterReportsTheGameLeavingTheCheckpoint() {
+        Squadlocke moved = new Squadlocke();
+        moved.setId(GAME);
+        moved.setGameState(new RegistrationGameState());
+        moved.setParticipants(new HashSet<>(Collections.singleton(participant())));
+
+        Mockito.when(this.squadlockeRepository.saveEncounters(eq(this.game), anyCollection())).thenReturn(false);
+        Mockito.when(this.squadlockeRepository.findById(GAME)).thenReturn(Optional.of(this.game), Optional.of(moved));
+
+        assertThrows(ImproperGameStateException.class,
+                () -> this.squadlockeService.getEncounter(GAME, PLAYER, "route-1", EncounterMode.DAY, true));
+    }
+
+    @Test
+    void refusedJoinReportsThePlayerAlreadyJoining() {
+        Squadlocke registering = new Squadlocke();
+        registering.setId(GAME);
+        registering.setGameState(new RegistrationGameState());
+        registering.setParticipants(new HashSet<>());
+
+        Squadlocke joined = new Squadlocke();
+        joined.setId(GAME);
+        joined.setGameState(new RegistrationGameState());
+        joined.setParticipants(new HashSet<>(Arrays.asList(new SquadlockeParticipant("player-2"))));
+
+        Mockito.when(this.squadlockeRepository.findById(GAME)).thenReturn(Optional.of(registering), Optional.of(joined));
+        Mockito.when(this.squadlockeRepository.addParticipant(eq(registering), any())).thenReturn(false);
+
+        assertThrows(DuplicateGameResourceException.class,
+                () -> this.squadlockeService.joinSquadlocke(GAME, "player-2", "4", STARTER));
+    }
+
+    @Test
+    void saturatedContinuationPoolIsServiceUnavailable() throws Exception {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(1);
+        pool.setMaxPoolSize(1);
+        pool.setQueueCapacity(0);
+        pool.initialize();
+
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            pool.execute(() -> {
+                try {
+                    release.await();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            // Species arrive on another thread, like a response completing on the event loop
+            AsyncPokeApiClient asyncPokeApiClient = Mockito.mock(AsyncPokeApiClient.class);
+            Mockito.when(asyncPokeApiClient.getPokemon(anyInt()))
+                    .thenAnswer(invocation -> CompletableFuture.supplyAsync(() -> model(invocation.getArgument(0))));
+            ReflectionTestUtils.setField(this.squadlockeService, "asyncPokeApiClient", asyncPokeApiClient);
+            ReflectionTestUtils.setField(this.squadlockeService, "continuationExecutor", new ContinuationExecutor(pool));
+
+            SquadlockeController controller = new SquadlockeController();
+            ReflectionTestUtils.setField(controller, "squadlockeService", this.squadlockeService);
+            MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                    .setControllerAdvice(new RestExceptionHandler())
+                    .build();
+
+            MvcResult result = mockMvc.perform(post("/games/squadlocke/" + GAME + "/encounter")
+                            .param("participantId", PLAYER)
+                            .param("locationId", "route-1")
+                            .param("encounterMode", EncounterMode.DAY.name()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A participant with a fixed seed who has caught their starter.
+     */
+    private static SquadlockeParticipant participant() {
+        SquadlockeParticipant participant = new SquadlockeParticipant(PLAYER);
+        participant.setSeed(1234);
+
+        SquadlockePokemon starter = new SquadlockePokemon();
+        starter.setLocationId("starter");
+        starter.setModel(model(STARTER));
+        participant.getBox().add(starter);
+        participant.getBox().updateEncounter("starter", "starter", 0, Nature.CALM, Gender.MALE, false);
+
+        return participant;
+    }
+
+    private static Pokemon model(int species) {
+        Ability ability = new Ability();
+        ability.setName("ability-" + species);
+
+        Pokemon model = new Pokemon();
+        model.setId(species);
+        model.setName("species-" + species);
+        model.setAbilities(Collections.singletonList(ability));
+        return model;
+    }
+}